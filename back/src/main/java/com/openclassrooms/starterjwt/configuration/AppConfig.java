@@ -1,5 +1,9 @@
 package com.openclassrooms.starterjwt.configuration;
 
+import com.openclassrooms.starterjwt.models.TimeOrderedIdGenerator;
+import com.openclassrooms.starterjwt.util.TimeOrderedIds;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
@@ -14,4 +18,31 @@ public class AppConfig {
         configurer.setLocation(new FileSystemResource(".env"));
         return configurer;
     }
+
+    /**
+     * Passes {@code oc.app.idNode} (required, {@code ID_NODE}) to {@link TimeOrderedIdGenerator}.
+     * The {@code single-node} profile defaults it to 0.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer idNodeCustomizer(@Value("${oc.app.idNode:}") String idNode) {
+        int node = idNode(idNode);
+        return properties -> properties.put(TimeOrderedIdGenerator.NODE_SETTING, node);
+    }
+
+    /**
+     * @throws IllegalStateException if the node is missing or out of range, so the application doesn't start
+     */
+    static int idNode(String value) {
+        try {
+            int node = Integer.parseInt(value.trim());
+            if (node >= 0 && node <= TimeOrderedIds.MAX_NODE) {
+                return node;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalStateException("ID_NODE (oc.app.idNode) must be set between 0 and " + TimeOrderedIds.MAX_NODE
+                + ", distinct for each instance, or the single-node profile activated on a single instance (was '"
+                + value + "')");
+    }
 }
@@ -1,14 +1,19 @@
 package com.openclassrooms.starterjwt.controllers;
 import com.openclassrooms.starterjwt.payload.request.LoginRequest;
+import com.openclassrooms.starterjwt.payload.request.RefreshTokenRequest;
 import com.openclassrooms.starterjwt.payload.request.SignupRequest;
 import com.openclassrooms.starterjwt.payload.response.JwtResponse;
 import com.openclassrooms.starterjwt.payload.response.MessageResponse;
+import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.security.services.LoginThrottle;
 import com.openclassrooms.starterjwt.services.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -19,18 +24,37 @@ import org.springframework.web.bind.annotation.RestController;
 
 public class AuthController {
     private final AuthService authService;
-    public AuthController(AuthService authService) {
+    private final LoginThrottle loginThrottle;
+    public AuthController(AuthService authService, LoginThrottle loginThrottle) {
         this.authService = authService;
+        this.loginThrottle = loginThrottle;
     }
 
     // Logic moved to the AuthService
     @PostMapping("/login")
-    public ResponseEntity<JwtResponse> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
+    public ResponseEntity<JwtResponse> authenticateUser(@Valid @RequestBody LoginRequest loginRequest,
+                                                        HttpServletRequest request) {
+        // Rejected before any BCrypt work is spent on the attempt
+        loginThrottle.acquire(loginRequest.getEmail(), request.getRemoteAddr());
 
         JwtResponse jwtResponse = authService.authenticateUser(loginRequest);
         return ResponseEntity.ok(jwtResponse);
     }
 
+    @PostMapping("/refresh")
+    public ResponseEntity<JwtResponse> refresh(@Valid @RequestBody RefreshTokenRequest refreshTokenRequest) {
+        return ResponseEntity.ok(authService.refresh(refreshTokenRequest.getRefreshToken()));
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<MessageResponse> logout(@RequestBody(required = false) RefreshTokenRequest refreshTokenRequest,
+                                                  @RequestHeader(value = "Authorization", required = false) String authorization) {
+        authService.logout(
+                JwtUtils.parseBearerToken(authorization),
+                refreshTokenRequest != null ? refreshTokenRequest.getRefreshToken() : null);
+        return ResponseEntity.ok(new MessageResponse("Logged out successfully!"));
+    }
+
     // Logic moved to the AuthService
 
     @PostMapping("/register")
@@ -1,21 +1,46 @@
 package com.openclassrooms.starterjwt.controllers;
 
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.dto.SessionPatchDto;
 import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.services.SessionCursor;
+import com.openclassrooms.starterjwt.services.SessionFilter;
+import com.openclassrooms.starterjwt.services.SessionJsonCache;
+import com.openclassrooms.starterjwt.services.SessionPage;
 import com.openclassrooms.starterjwt.services.SessionService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Date;
 import java.util.List;
 
 
@@ -24,28 +49,102 @@ import java.util.List;
 @RequestMapping("/api/session")
 @Log4j2
 public class SessionController {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+
     private final SessionMapper sessionMapper;
     private final SessionService sessionService;
+    private final ObjectMapper objectMapper;
+    private final SessionJsonCache sessionJsonCache;
 
 
     public SessionController(SessionService sessionService,
-                             SessionMapper sessionMapper) {
+                             SessionMapper sessionMapper,
+                             ObjectMapper objectMapper,
+                             SessionJsonCache sessionJsonCache) {
         this.sessionMapper = sessionMapper;
         this.sessionService = sessionService;
+        this.objectMapper = objectMapper;
+        this.sessionJsonCache = sessionJsonCache;
     }
 
+    /**
+     * Served from the serialized JSON in {@link SessionJsonCache}, with an ETag. Answers 304 without
+     * serializing anything when it matches {@code If-None-Match}.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<SessionDto> findById(@PathVariable("id") String id) {
-        Session session = sessionService.getById(Long.valueOf(id));
-        return ResponseEntity.ok().body(sessionMapper.toDto(session));
+    public void findById(@PathVariable("id") String id, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        Long sessionId = Long.valueOf(id);
+        SessionJsonCache.SessionJson session = sessionJsonCache.getSession(sessionId, () -> {
+            Session loaded = sessionService.getById(sessionId);
+            List<Long> participantIds = sessionService.findParticipantIds(List.of(sessionId)).get(sessionId);
+            SessionDto sessionDto = sessionMapper.toDto(loaded, participantIds);
+            return new SessionJsonCache.LoadedSession(
+                    SessionETags.of(loaded, participantIds), () -> serialize(sessionDto));
+        });
+        if (new ServletWebRequest(request, response).checkNotModified(session.etag())) {
+            return;
+        }
+        writeJson(response, session.json().get());
     }
 
+    /**
+     * Sessions in {@code (date, id)} order, one page at a time. The token of the next page is
+     * returned in the {@code X-Next-Cursor} header, absent on the last page.
+     * {@code unpaged=true} returns every matching session in one response.
+     * Pages are served from the serialized JSON in {@link SessionJsonCache}.
+     */
     @GetMapping()
-    public ResponseEntity<List<SessionDto>> findAll() {
-        List<Session> sessions = sessionService.findAll();
-        return ResponseEntity.ok().body(sessionMapper.toDto(sessions));
+    public void findAll(
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date to,
+            @RequestParam(value = "teacherId", required = false) Long teacherId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "" + DEFAULT_PAGE_SIZE) int size,
+            @RequestParam(value = "unpaged", defaultValue = "false") boolean unpaged,
+            HttpServletResponse response) throws IOException {
+        SessionFilter filter = new SessionFilter(from, to, teacherId);
+        if (unpaged) {
+            writeJson(response, ByteBuffer.wrap(serialize(toDto(sessionService.findAll(filter)))));
+            return;
+        }
+
+        SessionCursor after = SessionCursor.decode(cursor);
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        SessionJsonCache.Page page = sessionJsonCache.getPage(new SessionJsonCache.PageKey(filter, cursor, pageSize), () -> {
+            SessionPage sessions = sessionService.findPage(filter, after, pageSize);
+            long[] sessionIds = sessions.sessions().stream().mapToLong(Session::getId).toArray();
+            return new SessionJsonCache.SerializedPage(
+                    serialize(toDto(sessions.sessions())), sessions.nextCursor(), sessionIds);
+        });
+        if (page.nextCursor() != null) {
+            response.setHeader(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        writeJson(response, page.json());
     }
 
+    /**
+     * Every session matching the filters, in {@code (date, id)} order, written to the response as it
+     * is read from the database.
+     */
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> stream(
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date to,
+            @RequestParam(value = "teacherId", required = false) Long teacherId) {
+        SessionFilter filter = new SessionFilter(from, to, teacherId);
+        StreamingResponseBody body = outputStream -> {
+            try (SequenceWriter writer = objectMapper.writerFor(SessionDto.class).writeValuesAsArray(outputStream)) {
+                sessionService.forEach(filter, (row, participantIds) -> write(writer, sessionMapper.toDto(row, participantIds)));
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    // Checked against the token's role claim, no user lookup
+    @PreAuthorize("hasRole('ADMIN')")
     @PostMapping()
     public ResponseEntity<SessionDto> create(@Valid @RequestBody SessionDto sessionDto) {
         log.info(sessionDto);
@@ -56,19 +155,51 @@ public class SessionController {
         return ResponseEntity.ok().body(sessionMapper.toDto(session));
     }
 
+    /**
+     * Answers 412 if {@code If-Match} is set and doesn't match the session anymore.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
     @PutMapping("{id}")
     public ResponseEntity<SessionDto> update(
             @PathVariable("id") String id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody SessionDto sessionDto) {
 
-        Session session = sessionService.update(Long.parseLong(id), sessionMapper.toEntity(sessionDto));
-        return ResponseEntity.ok().body(sessionMapper.toDto(session));
+        Long sessionId = Long.parseLong(id);
+        Session session = sessionService.update(
+                sessionId, sessionMapper.toEntity(sessionDto), SessionETags.expectedVersion(ifMatch));
+        if (session.getUsers() != null) {
+            return ResponseEntity.ok().body(sessionMapper.toDto(session));
+        }
+        // Participants left unchanged: read from the join table, as GET does
+        List<Long> participantIds = sessionService.findParticipantIds(List.of(sessionId)).get(sessionId);
+        return ResponseEntity.ok().body(sessionMapper.toDto(session, participantIds));
     }
 
+    /**
+     * Changes only the fields present in the body. Answers 204 without a body: the session isn't read back.
+     * Answers 412 if {@code If-Match} is set and doesn't match the session anymore.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PatchMapping("{id}")
+    public ResponseEntity<?> patch(
+            @PathVariable("id") String id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Valid @RequestBody SessionPatchDto patchDto) {
+
+        sessionService.patch(Long.parseLong(id), sessionMapper.toPatch(patchDto), SessionETags.expectedVersion(ifMatch));
+        return ResponseEntity.noContent().build();
+    }
 
+    /**
+     * Answers 412 if {@code If-Match} is set and doesn't match the session anymore.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
     @DeleteMapping("{id}")
-    public ResponseEntity<?> delete(@PathVariable("id") String id) {
-        sessionService.delete(Long.valueOf(id));
+    public ResponseEntity<?> delete(
+            @PathVariable("id") String id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        sessionService.delete(Long.valueOf(id), SessionETags.expectedVersion(ifMatch));
         return ResponseEntity.ok().build();
     }
 
@@ -89,4 +220,32 @@ public class SessionController {
         sessionService.noLongerParticipate(Long.parseLong(id), Long.parseLong(userId));
         return ResponseEntity.ok().build();
     }
+
+    private byte[] serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Copied to the response through a small buffer, never as a whole on the heap
+    private static void writeJson(HttpServletResponse response, ByteBuffer json) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(json.remaining());
+        Channels.newChannel(response.getOutputStream()).write(json);
+    }
+
+    private static void write(SequenceWriter writer, SessionDto sessionDto) {
+        try {
+            writer.write(sessionDto);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<SessionDto> toDto(List<Session> sessions) {
+        List<Long> sessionIds = sessions.stream().map(Session::getId).toList();
+        return sessionMapper.toDto(sessions, sessionService.findParticipantIds(sessionIds));
+    }
 }
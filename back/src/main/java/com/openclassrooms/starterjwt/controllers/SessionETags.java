@@ -0,0 +1,43 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.openclassrooms.starterjwt.exception.PreconditionFailedException;
+import com.openclassrooms.starterjwt.models.Session;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * ETags of single sessions, {@code "<version>-<participants>"}: the version changes with every update of the
+ * session, the hash of its participant ids with every participation, which doesn't write the session row.
+ * If-Match only compares the version, within the update itself: participations never conflict with an edit.
+ */
+final class SessionETags {
+    private static final Pattern ETAG = Pattern.compile("\"(\\d{1,18})-[0-9a-f]{1,8}\"");
+
+    private SessionETags() {
+    }
+
+    /**
+     * @param participantIds in ascending order, as read by {@code SessionService#findParticipantIds}
+     */
+    static String of(Session session, List<Long> participantIds) {
+        List<Long> ids = participantIds != null ? participantIds : List.of();
+        return "\"" + session.getVersion() + "-" + Integer.toHexString(ids.hashCode()) + "\"";
+    }
+
+    /**
+     * @return the version the session must be at, null when the header is absent or {@code *}
+     * @throws PreconditionFailedException if the header isn't a single ETag of a session, which can't match
+     */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        Matcher matcher = ETAG.matcher(ifMatch.trim());
+        if (!matcher.matches()) {
+            throw new PreconditionFailedException();
+        }
+        return Long.valueOf(matcher.group(1));
+    }
+}
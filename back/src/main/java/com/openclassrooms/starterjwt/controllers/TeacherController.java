@@ -1,39 +1,43 @@
 package com.openclassrooms.starterjwt.controllers;
 
-import com.openclassrooms.starterjwt.dto.TeacherDto;
-import com.openclassrooms.starterjwt.mapper.TeacherMapper;
-import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.services.TeacherDirectory;
 import com.openclassrooms.starterjwt.services.TeacherService;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.List;
-
+/**
+ * Serves the JSON pre-serialized by the {@link TeacherService} snapshot. Responses carry an ETag:
+ * a request with a matching {@code If-None-Match} gets a 304 without a body.
+ */
 @RestController
 @RequestMapping("/api/teacher")
 public class TeacherController {
-    private final TeacherMapper teacherMapper;
     private final TeacherService teacherService;
 
 
-    public TeacherController(TeacherService teacherService,
-                             TeacherMapper teacherMapper) {
-        this.teacherMapper = teacherMapper;
+    public TeacherController(TeacherService teacherService) {
         this.teacherService = teacherService;
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<TeacherDto> findById(@PathVariable("id") String id) {
-        Teacher teacher = teacherService.findById(Long.valueOf(id));
-        return ResponseEntity.ok().body(teacherMapper.toDto(teacher));
+    public ResponseEntity<byte[]> findById(@PathVariable("id") String id) {
+        return toResponse(teacherService.findJsonById(Long.valueOf(id)));
     }
 
     @GetMapping()
-    public ResponseEntity<List<TeacherDto>> findAll() {
-        List<Teacher> teachers = teacherService.findAll();
-        return ResponseEntity.ok().body(teacherMapper.toDto(teachers));
+    public ResponseEntity<byte[]> findAll() {
+        return toResponse(teacherService.findAllJson());
+    }
+
+    // The ETag is checked against If-None-Match by Spring before the body is written
+    private static ResponseEntity<byte[]> toResponse(TeacherDirectory.Json json) {
+        return ResponseEntity.ok()
+                .eTag(json.etag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(json.bytes());
     }
 }
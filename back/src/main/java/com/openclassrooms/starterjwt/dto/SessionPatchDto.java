@@ -0,0 +1,31 @@
+package com.openclassrooms.starterjwt.dto;
+
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A partial {@link SessionDto}: the absent or null fields are left as they are.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionPatchDto {
+    @Pattern(regexp = "(?s).*\\S.*", message = "must not be blank")
+    @Size(max = 50)
+    private String name;
+
+    private Date date;
+
+    private Long teacher_id;
+
+    @Size(max = 2500)
+    private String description;
+
+    private List<Long> users;
+}
@@ -1,18 +1,26 @@
 package com.openclassrooms.starterjwt.mapper;
 
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.dto.SessionPatchDto;
 import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionPatch;
+import com.openclassrooms.starterjwt.repository.SessionRow;
+import com.openclassrooms.starterjwt.services.SessionService;
 import com.openclassrooms.starterjwt.services.TeacherService;
 import com.openclassrooms.starterjwt.services.UserService;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.Mappings;
+import org.mapstruct.Named;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -28,15 +36,59 @@ public abstract class SessionMapper implements EntityMapper<SessionDto, Session>
     @Mappings({
             @Mapping(source = "description", target = "description"),
             @Mapping(target = "teacher", expression = "java(sessionDto.getTeacher_id() != null ? this.teacherService.findById(sessionDto.getTeacher_id()) : null)"),
-            @Mapping(target = "users", expression = "java(Optional.ofNullable(sessionDto.getUsers()).orElseGet(Collections::emptyList).stream().map(user_id -> { User user = this.userService.findById(user_id); if (user != null) { return user; } return null; }).collect(Collectors.toList()))"),
+            @Mapping(target = "users", expression = "java(this.userService.findAllById(Optional.ofNullable(sessionDto.getUsers()).orElseGet(Collections::emptyList)))"),
+            @Mapping(target = "version", ignore = true),
     })
     public abstract Session toEntity(SessionDto sessionDto);
 
 
+    /**
+     * Resolves the teacher and the users of the patch, only when they are part of it.
+     */
+    public SessionPatch toPatch(SessionPatchDto patchDto) {
+        return new SessionPatch(
+                patchDto.getName(),
+                patchDto.getDate(),
+                patchDto.getDescription(),
+                patchDto.getTeacher_id() != null ? teacherService.findById(patchDto.getTeacher_id()) : null,
+                patchDto.getUsers() != null ? userService.findAllById(patchDto.getUsers()) : null);
+    }
+
     @Mappings({
             @Mapping(source = "description", target = "description"),
             @Mapping(source = "session.teacher.id", target = "teacher_id"),
-            @Mapping(target = "users", expression = "java(Optional.ofNullable(session.getUsers()).orElseGet(Collections::emptyList).stream().map(u -> u.getId()).collect(Collectors.toList()))"),
+            @Mapping(target = "users", expression = "java(Optional.ofNullable(session.getUsers()).orElseGet(Collections::emptySet).stream().map(u -> u.getId()).collect(Collectors.toList()))"),
     })
     public abstract SessionDto toDto(Session session);
+
+    @Named("withoutUsers")
+    @Mappings({
+            @Mapping(source = "session.teacher.id", target = "teacher_id"),
+            @Mapping(target = "users", ignore = true),
+    })
+    abstract SessionDto toDtoWithoutUsers(Session session);
+
+    /**
+     * Maps a session read with its participant ids from {@link SessionService#findParticipantIds},
+     * without initializing {@link Session#getUsers()}.
+     */
+    public SessionDto toDto(Session session, List<Long> participantIds) {
+        SessionDto sessionDto = toDtoWithoutUsers(session);
+        sessionDto.setUsers(participantIds != null ? participantIds : new ArrayList<>());
+        return sessionDto;
+    }
+
+    @Mappings({
+            @Mapping(source = "row.teacherId", target = "teacher_id"),
+            @Mapping(source = "participantIds", target = "users"),
+    })
+    public abstract SessionDto toDto(SessionRow row, List<Long> participantIds);
+
+    public List<SessionDto> toDto(List<Session> sessions, Map<Long, List<Long>> participantIds) {
+        List<SessionDto> sessionDtos = new ArrayList<>(sessions.size());
+        for (Session session : sessions) {
+            sessionDtos.add(toDto(session, participantIds.get(session.getId())));
+        }
+        return sessionDtos;
+    }
 }
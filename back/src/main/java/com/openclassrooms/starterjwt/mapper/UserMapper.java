@@ -3,9 +3,14 @@ package com.openclassrooms.starterjwt.mapper;
 import com.openclassrooms.starterjwt.dto.UserDto;
 import com.openclassrooms.starterjwt.models.User;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.springframework.stereotype.Component;
 
 @Component
 @Mapper(componentModel = "spring")
 public interface UserMapper extends EntityMapper<UserDto, User> {
+
+    @Mapping(target = "normalizedEmail", ignore = true)
+    @Mapping(target = "tokenVersion", ignore = true)
+    User toEntity(UserDto userDto);
 }
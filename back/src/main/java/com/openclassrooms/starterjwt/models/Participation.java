@@ -0,0 +1,45 @@
+package com.openclassrooms.starterjwt.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * A row of the {@code PARTICIPATE} join table behind {@link Session#getUsers()}.
+ * <p>
+ * Mapped on its own so joining or leaving a session is a single insert or delete, instead of
+ * loading and re-saving the whole participant collection. The {@code (session_id, user_id)}
+ * primary key rejects duplicates, the {@code (user_id, session_id)} index serves the lookups by user.
+ */
+@Entity
+@Table(name = "PARTICIPATE", indexes = @Index(name = "idx_participate_user_session", columnList = "user_id, session_id"))
+@IdClass(Participation.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Participation {
+    @Id
+    @Column(name = "session_id")
+    private Long sessionId;
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long sessionId;
+
+        private Long userId;
+    }
+}
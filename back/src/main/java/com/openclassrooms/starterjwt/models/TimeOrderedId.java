@@ -0,0 +1,18 @@
+package com.openclassrooms.starterjwt.models;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Id generated by {@link TimeOrderedIdGenerator} before the insert, instead of by the database: unlike
+ * {@code IDENTITY}, the inserts of a flush can then be sent in JDBC batches.
+ */
+@IdGeneratorType(TimeOrderedIdGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface TimeOrderedId {
+}
@@ -0,0 +1,48 @@
+package com.openclassrooms.starterjwt.models;
+
+import com.openclassrooms.starterjwt.util.TimeOrderedIds;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.AnnotationBasedGenerator;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+import org.hibernate.generator.GeneratorCreationContext;
+
+import java.lang.reflect.Member;
+import java.util.EnumSet;
+
+/**
+ * Generates the {@link TimeOrderedId} ids with {@link TimeOrderedIds}, for the node set in the
+ * {@value #NODE_SETTING} Hibernate setting (from {@code oc.app.idNode}). The setting is required: two
+ * instances sharing a node would generate the same ids, so the session factory doesn't start without it.
+ */
+public class TimeOrderedIdGenerator implements BeforeExecutionGenerator, AnnotationBasedGenerator<TimeOrderedId> {
+    public static final String NODE_SETTING = "oc.app.idNode";
+
+    private TimeOrderedIds ids;
+
+    @Override
+    public void initialize(TimeOrderedId annotation, Member member, GeneratorCreationContext context) {
+        Integer node = context.getServiceRegistry().requireService(ConfigurationService.class)
+                .getSetting(NODE_SETTING, StandardConverters.INTEGER);
+        if (node == null || node < 0 || node > TimeOrderedIds.MAX_NODE) {
+            throw new IllegalStateException(NODE_SETTING + " must be set between 0 and " + TimeOrderedIds.MAX_NODE
+                    + ", distinct for each instance, to generate the " + member.getDeclaringClass().getSimpleName()
+                    + " ids (was " + node + ")");
+        }
+        this.ids = new TimeOrderedIds(node);
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue,
+                           EventType eventType) {
+        return ids.next();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+}
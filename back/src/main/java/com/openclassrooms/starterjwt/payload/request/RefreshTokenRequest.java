@@ -0,0 +1,12 @@
+package com.openclassrooms.starterjwt.payload.request;
+
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+@Data
+public class RefreshTokenRequest {
+    @NotBlank
+    private String refreshToken;
+
+}
@@ -15,8 +15,12 @@ public class JwtResponse {
 
     private Boolean admin;
 
-    public JwtResponse(String accessToken, Long id, String username, String firstName, String lastName, Boolean admin) {
+    private String refreshToken;
+
+    public JwtResponse(String accessToken, Long id, String username, String firstName, String lastName, Boolean admin,
+                       String refreshToken) {
         this.token = accessToken;
+        this.refreshToken = refreshToken;
         this.id = id;
         this.firstName = firstName;
         this.lastName = lastName;
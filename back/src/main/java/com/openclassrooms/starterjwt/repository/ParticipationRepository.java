@@ -0,0 +1,56 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.models.Participation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ParticipationRepository extends JpaRepository<Participation, Participation.Key> {
+    List<Participation> findBySessionIdInOrderBySessionIdAscUserIdAsc(Collection<Long> sessionIds);
+
+    @Query("select p.sessionId from Participation p where p.userId = :userId")
+    List<Long> findSessionIdsByUserId(@Param("userId") Long userId);
+
+    /**
+     * @return 0 if the session or the user doesn't exist
+     * @throws org.springframework.dao.DataIntegrityViolationException if the user already participates
+     */
+    @Transactional
+    @Modifying
+    @Query("insert into Participation (sessionId, userId) "
+            + "select s.id, u.id from Session s, User u where s.id = :sessionId and u.id = :userId")
+    int participate(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    @Transactional
+    @Modifying
+    @Query("delete from Participation p where p.sessionId = :sessionId and p.userId = :userId")
+    int leave(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    /**
+     * Adds the given users to the participants of the session, skipping those who already participate.
+     * @return the number of participations added
+     */
+    @Transactional
+    @Modifying
+    @Query("insert into Participation (sessionId, userId) "
+            + "select :sessionId, u.id from User u where u.id in :userIds and not exists "
+            + "(select 1 from Participation p where p.sessionId = :sessionId and p.userId = u.id)")
+    int participateAll(@Param("sessionId") Long sessionId, @Param("userIds") Collection<Long> userIds);
+
+    @Transactional
+    @Modifying
+    @Query("delete from Participation p where p.sessionId = :sessionId and p.userId not in :userIds")
+    int leaveAllBut(@Param("sessionId") Long sessionId, @Param("userIds") Collection<Long> userIds);
+
+    @Transactional
+    @Modifying
+    @Query("delete from Participation p where p.sessionId = :sessionId")
+    int leaveAll(@Param("sessionId") Long sessionId);
+}
@@ -0,0 +1,19 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+
+import java.util.Date;
+import java.util.Set;
+
+/**
+ * The fields of a session to change, as sent to {@code PATCH /api/session/{id}}: a null field is left as it is.
+ * {@code users} replaces the participants when set.
+ */
+public record SessionPatch(
+        String name,
+        Date date,
+        String description,
+        Teacher teacher,
+        Set<User> users) {
+}
@@ -0,0 +1,13 @@
+package com.openclassrooms.starterjwt.repository;
+
+import java.time.LocalDateTime;
+
+public interface SessionPatchRepository {
+    /**
+     * Updates only the columns set in the patch, {@code updated_at} and {@code version}, without reading the
+     * session first. The participants are left to the caller.
+     * @param version the version the session must be at, null for any
+     * @return 0 if the session doesn't exist or is at another version
+     */
+    int patch(Long id, SessionPatch patch, LocalDateTime updatedAt, Long version);
+}
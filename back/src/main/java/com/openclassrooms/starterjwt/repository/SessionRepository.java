@@ -1,9 +1,80 @@
 package com.openclassrooms.starterjwt.repository;
 
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.stream.Stream;
 
 @Repository
-public interface SessionRepository extends JpaRepository<Session, Long> {
+public interface SessionRepository extends JpaRepository<Session, Long>, JpaSpecificationExecutor<Session>,
+        SessionPatchRepository {
+    /**
+     * Sessions matching the optional filters, one row per participant, in {@code (date, id)} order.
+     * Read through a database cursor: the stream must be closed, inside a transaction.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.openclassrooms.starterjwt.repository.SessionRow("
+            + "s.id, s.name, s.date, s.description, s.teacher.id, s.createdAt, s.updatedAt, p.userId) "
+            + "from Session s left join Participation p on p.sessionId = s.id "
+            + "where (:from is null or s.date >= :from) "
+            + "and (:to is null or s.date < :to) "
+            + "and (:teacherId is null or s.teacher.id = :teacherId) "
+            + "order by s.date, s.id, p.userId")
+    Stream<SessionRow> streamAll(@Param("from") Date from,
+                                 @Param("to") Date to,
+                                 @Param("teacherId") Long teacherId);
+
+    /**
+     * Updates the session without reading it first; its participants are left as they are.
+     * @param version the version the session must be at, null for any
+     * @return 0 if the session doesn't exist or is at another version
+     */
+    @Transactional
+    @Modifying
+    @Query("update Session s set s.name = :name, s.date = :date, s.description = :description, "
+            + "s.teacher = :teacher, s.updatedAt = :updatedAt, s.version = s.version + 1 "
+            + "where s.id = :id and (:version is null or s.version = :version)")
+    int updateDetails(@Param("id") Long id,
+                      @Param("name") String name,
+                      @Param("date") Date date,
+                      @Param("description") String description,
+                      @Param("teacher") Teacher teacher,
+                      @Param("updatedAt") LocalDateTime updatedAt,
+                      @Param("version") Long version);
+
+    /**
+     * Deletes the session without reading it first; its participations go with it, through the foreign key.
+     * Native so that Hibernate doesn't clear the join table in a statement of its own beforehand.
+     * @return 0 if the session doesn't exist
+     */
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "sessions"))
+    @Query(value = "delete from sessions where id = :id", nativeQuery = true)
+    int deleteSession(@Param("id") Long id);
+
+    /**
+     * As {@link #deleteSession(Long)}, only if the session is at the given version.
+     * @return 0 if the session doesn't exist or is at another version
+     */
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "sessions"))
+    @Query(value = "delete from sessions where id = :id and version = :version", nativeQuery = true)
+    int deleteSession(@Param("id") Long id, @Param("version") long version);
 }
@@ -0,0 +1,19 @@
+package com.openclassrooms.starterjwt.repository;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+
+/**
+ * A session joined with one of its participants, as read by {@link SessionRepository#streamAll}.
+ * {@code userId} is null for a session without participants.
+ */
+public record SessionRow(
+        Long id,
+        String name,
+        Date date,
+        String description,
+        Long teacherId,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        Long userId) {
+}
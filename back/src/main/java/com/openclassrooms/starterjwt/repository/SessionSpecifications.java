@@ -0,0 +1,39 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.models.Session;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Date;
+
+/**
+ * Criteria of the session listing. Each one matches a prefix of the {@code (teacher_id, date, id)}
+ * or {@code (date, id)} indexes of {@link Session}, so a page is a range scan whatever the table size.
+ */
+public final class SessionSpecifications {
+    public static final Sort KEYSET_ORDER = Sort.by("date", "id");
+
+    private SessionSpecifications() {
+    }
+
+    public static Specification<Session> from(Date from) {
+        return (root, query, cb) -> from == null ? null : cb.greaterThanOrEqualTo(root.get("date"), from);
+    }
+
+    public static Specification<Session> to(Date to) {
+        return (root, query, cb) -> to == null ? null : cb.lessThan(root.get("date"), to);
+    }
+
+    public static Specification<Session> teacher(Long teacherId) {
+        return (root, query, cb) -> teacherId == null ? null : cb.equal(root.get("teacher").get("id"), teacherId);
+    }
+
+    /**
+     * Sessions strictly after {@code (date, id)} in {@link #KEYSET_ORDER}.
+     */
+    public static Specification<Session> after(Date date, Long id) {
+        return (root, query, cb) -> date == null ? null : cb.or(
+                cb.greaterThan(root.get("date"), date),
+                cb.and(cb.equal(root.get("date"), date), cb.greaterThan(root.get("id"), id)));
+    }
+}
@@ -0,0 +1,16 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.models.User;
+
+import java.util.Optional;
+
+/**
+ * Lookups by the normalized email natural id of {@link User}, served by the second-level cache when the
+ * user was already resolved.
+ */
+public interface UserNaturalIdRepository {
+    /**
+     * @param email as typed, whatever its case
+     */
+    Optional<User> findByEmail(String email);
+}
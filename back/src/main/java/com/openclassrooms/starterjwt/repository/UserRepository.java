@@ -1,14 +1,72 @@
 package com.openclassrooms.starterjwt.repository;
 
 import com.openclassrooms.starterjwt.models.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Optional;
+import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
-    Optional<User> findByEmail(String email);
+public interface UserRepository extends JpaRepository<User, Long>, UserNaturalIdRepository {
+    /**
+     * @param normalizedEmail as returned by {@link User#normalizeEmail(String)}
+     */
+    boolean existsByNormalizedEmail(String normalizedEmail);
 
-    Boolean existsByEmail(String email);
+    List<User> findByTokenVersionGreaterThan(int tokenVersion);
+
+    /**
+     * Every registered email, normalized, read through a database cursor: the stream must be closed, inside a transaction.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select u.normalizedEmail from User u")
+    Stream<String> streamNormalizedEmails();
+
+    @Transactional
+    @Modifying
+    @Query("update User u set u.password = :newPassword where u.id = :id and u.password = :oldPassword")
+    int updatePassword(@Param("id") Long id,
+                       @Param("oldPassword") String oldPassword,
+                       @Param("newPassword") String newPassword);
+
+    /**
+     * Changes the admin flag and bumps the token version in the same statement, so the tokens issued
+     * with the former role are refused.
+     * @return 0 if the user doesn't exist
+     */
+    @Transactional
+    @Modifying
+    @Query("update User u set u.admin = :admin, u.tokenVersion = u.tokenVersion + 1 where u.id = :id")
+    int updateAdmin(@Param("id") Long id, @Param("admin") boolean admin);
+
+    /**
+     * Replaces the password and bumps the token version in the same statement, so the tokens issued
+     * with the former credentials are refused.
+     * @return 0 if the user doesn't exist
+     */
+    @Transactional
+    @Modifying
+    @Query("update User u set u.password = :password, u.tokenVersion = u.tokenVersion + 1 where u.id = :id")
+    int changePassword(@Param("id") Long id, @Param("password") String password);
+
+    /**
+     * Deletes the user without reading it first; its participations and refresh tokens go with it,
+     * through the foreign keys.
+     * @return 0 if the user doesn't exist
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from User u where u.id = :id")
+    int deleteUser(@Param("id") Long id);
 }
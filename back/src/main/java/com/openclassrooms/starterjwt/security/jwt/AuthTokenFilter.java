@@ -1,6 +1,8 @@
 package com.openclassrooms.starterjwt.security.jwt;
 
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -8,11 +10,11 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
-import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 
@@ -24,24 +26,39 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     private JwtUtils jwtUtils;
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
+    @Autowired
+    private TokenVersionGuard tokenVersionGuard;
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
+    // Build the principal from the token claims instead of loading the user on every request
+    @Value("${oc.app.jwtStatelessPrincipal:true}")
+    private boolean statelessPrincipal;
+
+    // Reject claims-based principals whose token version is stale (deleted or demoted users)
+    @Value("${oc.app.jwtTokenVersionCheck:true}")
+    private boolean tokenVersionCheck;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         try {
-            String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String username = jwtUtils.getUserNameFromJwtToken(jwt);
-
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(
-                                userDetails,
-                                null,
-                                userDetails.getAuthorities());
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+            String jwt = JwtUtils.parseBearerToken(request.getHeader("Authorization"));
+            JwtVerification verification = jwt != null ? verifiedTokenCache.verify(jwt) : null;
+            if (verification != null && verification.isValid() && !isRevoked(verification.claims())) {
+                UserDetails userDetails = loadUserDetails(verification.claims());
+                if (userDetails != null) {
+                    UsernamePasswordAuthenticationToken authentication =
+                            new UsernamePasswordAuthenticationToken(
+                                    userDetails,
+                                    null,
+                                    userDetails.getAuthorities());
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                }
             }
         } catch (Exception e) {
             logger.error("Cannot set user authentication: {}", e);
@@ -50,13 +67,27 @@ public class AuthTokenFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
-    private String parseJwt(HttpServletRequest request) {
-        String headerAuth = request.getHeader("Authorization");
-
-        if (StringUtils.hasText(headerAuth) && headerAuth.startsWith("Bearer ")) {
-            return headerAuth.substring(7, headerAuth.length());
+    private UserDetails loadUserDetails(Claims claims) {
+        if (statelessPrincipal) {
+            UserDetailsImpl userDetails = jwtUtils.getUserDetailsFromClaims(claims);
+            if (userDetails != null) {
+                if (tokenVersionCheck && !tokenVersionGuard.isCurrent(userDetails.getId(), userDetails.getTokenVersion())) {
+                    logger.warn("Rejected stale JWT for user {}", userDetails.getId());
+                    return null;
+                }
+                return userDetails;
+            }
         }
 
-        return null;
+        // Tokens issued before the user claims were added still need a lookup
+        return userDetailsService.loadUserByUsername(claims.getSubject());
+    }
+
+    private boolean isRevoked(Claims claims) {
+        if (tokenRevocationList.isRevoked(claims)) {
+            logger.warn("Rejected revoked JWT for {}", claims.getSubject());
+            return true;
+        }
+        return false;
     }
 }
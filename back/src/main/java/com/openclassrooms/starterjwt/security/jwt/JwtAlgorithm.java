@@ -0,0 +1,84 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.MalformedKeyException;
+import io.jsonwebtoken.security.SecureDigestAlgorithm;
+
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+
+/**
+ * Signature algorithms accepted for the JWT keys, and how their keys are read from the configuration:
+ * a Base64 secret for HMAC, Base64 (or PEM) PKCS#8 private and X.509 public keys otherwise.
+ */
+public enum JwtAlgorithm {
+    HS256(Jwts.SIG.HS256, null),
+    HS512(Jwts.SIG.HS512, null),
+    ES256(Jwts.SIG.ES256, "EC"),
+    // Ed25519 or Ed448 keys
+    EDDSA(Jwts.SIG.EdDSA, "EdDSA");
+
+    private final SecureDigestAlgorithm<? extends Key, ? extends Key> signatureAlgorithm;
+    private final String keyFactoryAlgorithm;
+
+    JwtAlgorithm(SecureDigestAlgorithm<? extends Key, ? extends Key> signatureAlgorithm, String keyFactoryAlgorithm) {
+        this.signatureAlgorithm = signatureAlgorithm;
+        this.keyFactoryAlgorithm = keyFactoryAlgorithm;
+    }
+
+    /**
+     * @param id the JWA name ({@code HS512}, {@code EdDSA}...), case-insensitive
+     */
+    public static JwtAlgorithm fromId(String id) {
+        for (JwtAlgorithm algorithm : values()) {
+            if (algorithm.id().equalsIgnoreCase(id.trim())) {
+                return algorithm;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported JWT algorithm: " + id);
+    }
+
+    public String id() {
+        return signatureAlgorithm.getId();
+    }
+
+    @SuppressWarnings("unchecked")
+    SecureDigestAlgorithm<Key, ?> signatureAlgorithm() {
+        return (SecureDigestAlgorithm<Key, ?>) signatureAlgorithm;
+    }
+
+    boolean isSymmetric() {
+        return keyFactoryAlgorithm == null;
+    }
+
+    Key secretKey(String secret) {
+        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+    }
+
+    Key privateKey(String encoded) {
+        try {
+            return KeyFactory.getInstance(keyFactoryAlgorithm).generatePrivate(new PKCS8EncodedKeySpec(decodePem(encoded)));
+        } catch (GeneralSecurityException e) {
+            throw new MalformedKeyException("Invalid " + id() + " private key", e);
+        }
+    }
+
+    Key publicKey(String encoded) {
+        try {
+            return KeyFactory.getInstance(keyFactoryAlgorithm).generatePublic(new X509EncodedKeySpec(decodePem(encoded)));
+        } catch (GeneralSecurityException e) {
+            throw new MalformedKeyException("Invalid " + id() + " public key", e);
+        }
+    }
+
+    private static byte[] decodePem(String encoded) {
+        return Decoders.BASE64.decode(encoded
+                .replaceAll("-----(BEGIN|END)[A-Z ]+-----", "")
+                .replaceAll("\\s", ""));
+    }
+}
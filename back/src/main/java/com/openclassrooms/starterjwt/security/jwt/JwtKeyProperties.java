@@ -0,0 +1,35 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Additional JWT keys, on top of the {@code oc.app.jwtSecret} one, bound from {@code oc.app.jwtKeys}.
+ * A key without private part (or secret) only verifies tokens, which is how a key is phased in
+ * before signing with it and phased out after.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "oc.app")
+public class JwtKeyProperties {
+    private List<JwtKey> jwtKeys = new ArrayList<>();
+
+    @Data
+    public static class JwtKey {
+        private String kid;
+
+        private String algorithm;
+
+        // HMAC algorithms
+        private String secret;
+
+        // ES256 / EdDSA
+        private String privateKey;
+
+        private String publicKey;
+    }
+}
@@ -0,0 +1,67 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.security.UnsupportedKeyException;
+
+import java.security.Key;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The JWT keys, parsed once and selected by the {@code kid} header.
+ * <p>
+ * New tokens are signed with a single key; every key of the ring is accepted for verification, so
+ * keys rotate by deploying the new key first, then signing with it, then dropping the old one once
+ * its last token has expired. Tokens without {@code kid} (issued before key ids) use the default key.
+ */
+final class JwtKeyRing extends LocatorAdapter<Key> {
+    static final String DEFAULT_KEY_ID = "default";
+
+    record Entry(String kid, JwtAlgorithm algorithm, Key signingKey, Key verificationKey) {
+
+        static Entry of(JwtKeyProperties.JwtKey key) {
+            JwtAlgorithm algorithm = JwtAlgorithm.fromId(key.getAlgorithm());
+            if (algorithm.isSymmetric()) {
+                Key secretKey = algorithm.secretKey(key.getSecret());
+                return new Entry(key.getKid(), algorithm, secretKey, secretKey);
+            }
+            return new Entry(
+                    key.getKid(),
+                    algorithm,
+                    key.getPrivateKey() != null ? algorithm.privateKey(key.getPrivateKey()) : null,
+                    algorithm.publicKey(key.getPublicKey()));
+        }
+    }
+
+    private final Map<String, Entry> entries;
+    private final Entry signingEntry;
+
+    JwtKeyRing(Collection<Entry> entries, String signingKeyId) {
+        this.entries = entries.stream().collect(Collectors.toUnmodifiableMap(Entry::kid, Function.identity()));
+        this.signingEntry = this.entries.get(signingKeyId);
+        if (signingEntry == null || signingEntry.signingKey() == null) {
+            throw new IllegalStateException("No JWT signing key for kid " + signingKeyId);
+        }
+    }
+
+    Entry signingEntry() {
+        return signingEntry;
+    }
+
+    @Override
+    protected Key locate(JwsHeader header) {
+        String kid = header.getKeyId() != null ? header.getKeyId() : DEFAULT_KEY_ID;
+        Entry entry = entries.get(kid);
+        if (entry == null) {
+            throw new UnsupportedKeyException("Unknown JWT key id: " + kid);
+        }
+        // A token can't pick another algorithm than the one its key was configured for
+        if (!entry.algorithm().id().equals(header.getAlgorithm())) {
+            throw new UnsupportedKeyException("JWT algorithm " + header.getAlgorithm() + " doesn't match key " + kid);
+        }
+        return entry.verificationKey();
+    }
+}
@@ -1,59 +1,165 @@
 package com.openclassrooms.starterjwt.security.jwt;
 
+import com.openclassrooms.starterjwt.security.services.Role;
 import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.SignatureException;
 import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.SecurityException;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.UUID;
 
 @Slf4j
 @Component
 public class JwtUtils {
-    @Value("${oc.app.jwtSecret}")
+    static final String CLAIM_ID = "id";
+    static final String CLAIM_FIRST_NAME = "firstName";
+    static final String CLAIM_LAST_NAME = "lastName";
+    static final String CLAIM_ROLE = "role";
+    // Read only, for tokens issued before the role claim
+    static final String CLAIM_ADMIN = "admin";
+    static final String CLAIM_TOKEN_VERSION = "ver";
+
+    // Key of kid "default"; optional once oc.app.jwtKeys holds the signing key
+    @Value("${oc.app.jwtSecret:}")
     private String jwtSecret;
 
+    @Value("${oc.app.jwtAlgorithm:HS512}")
+    private String jwtAlgorithm = JwtAlgorithm.HS512.id();
+
+    @Value("${oc.app.jwtSigningKeyId:default}")
+    private String jwtSigningKeyId = JwtKeyRing.DEFAULT_KEY_ID;
+
+    @Autowired(required = false)
+    private JwtKeyProperties jwtKeyProperties;
+
     @Value("${oc.app.jwtExpirationMs}")
     private int jwtExpirationMs;
 
-    public String generateJwtToken(Authentication authentication) {
+    // Derived once: the keys and the parser are immutable and thread-safe
+    private JwtKeyRing keyRing;
+    private JwtParser jwtParser;
 
-        UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
+    @PostConstruct
+    void init() {
+        List<JwtKeyRing.Entry> entries = new ArrayList<>();
+        if (StringUtils.hasText(jwtSecret)) {
+            JwtKeyProperties.JwtKey defaultKey = new JwtKeyProperties.JwtKey();
+            defaultKey.setKid(JwtKeyRing.DEFAULT_KEY_ID);
+            defaultKey.setAlgorithm(jwtAlgorithm);
+            defaultKey.setSecret(jwtSecret);
+            entries.add(JwtKeyRing.Entry.of(defaultKey));
+        }
+        if (jwtKeyProperties != null) {
+            jwtKeyProperties.getJwtKeys().forEach(key -> entries.add(JwtKeyRing.Entry.of(key)));
+        }
+        keyRing = new JwtKeyRing(entries, jwtSigningKeyId);
+        jwtParser = Jwts.parser().keyLocator(keyRing).build();
+    }
 
-        return Jwts.builder()
-                .setSubject((userPrincipal.getUsername()))
-                .setIssuedAt(new Date())
-                .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(SignatureAlgorithm.HS512, jwtSecret)
-                .compact();
+    public String generateJwtToken(Authentication authentication) {
+        return generateJwtToken((UserDetailsImpl) authentication.getPrincipal());
     }
 
-    public String getUserNameFromJwtToken(String token) {
-        return Jwts.parser().setSigningKey(jwtSecret).build().parseClaimsJws(token).getBody().getSubject();
+    public String generateJwtToken(UserDetailsImpl userPrincipal) {
+        JwtKeyRing.Entry key = keyRing.signingEntry();
+        Date now = new Date();
+        return Jwts.builder()
+                .header().keyId(key.kid()).and()
+                .id(UUID.randomUUID().toString())
+                .subject(userPrincipal.getUsername())
+                .claim(CLAIM_ID, userPrincipal.getId())
+                .claim(CLAIM_FIRST_NAME, userPrincipal.getFirstName())
+                .claim(CLAIM_LAST_NAME, userPrincipal.getLastName())
+                .claim(CLAIM_ROLE, userPrincipal.getRole().name())
+                .claim(CLAIM_TOKEN_VERSION, userPrincipal.getTokenVersion())
+                .issuedAt(now)
+                .expiration(new Date(now.getTime() + jwtExpirationMs))
+                .signWith(key.signingKey(), key.algorithm().signatureAlgorithm())
+                .compact();
     }
 
-    public boolean validateJwtToken(String authToken) {
+    /**
+     * Parse and verify the token in a single pass.
+     * @return the verified claims, or the reason why the token was rejected
+     */
+    public JwtVerification verify(String token) {
         try {
-            Jwts.parser().setSigningKey(jwtSecret).build().parseClaimsJws(authToken);
-            return true;
-        } catch (SignatureException e) {
+            return JwtVerification.valid(jwtParser.parseSignedClaims(token).getPayload());
+        } catch (SecurityException e) {
+            // Bad signature, unknown kid or algorithm not matching the key
             log.error("Invalid JWT signature: {}", e.getMessage());
+            return JwtVerification.failed(JwtVerification.Failure.INVALID_SIGNATURE);
         } catch (MalformedJwtException e) {
             log.error("Invalid JWT token: {}", e.getMessage());
+            return JwtVerification.failed(JwtVerification.Failure.MALFORMED);
         } catch (ExpiredJwtException e) {
             log.error("JWT token is expired: {}", e.getMessage());
+            return JwtVerification.failed(JwtVerification.Failure.EXPIRED);
         } catch (UnsupportedJwtException e) {
             log.error("JWT token is unsupported: {}", e.getMessage());
+            return JwtVerification.failed(JwtVerification.Failure.UNSUPPORTED);
         } catch (IllegalArgumentException e) {
             log.error("JWT claims string is empty: {}", e.getMessage());
+            return JwtVerification.failed(JwtVerification.Failure.EMPTY);
         }
-        return false;
+    }
+
+    /**
+     * @return the token of a {@code Bearer} authorization header, or null
+     */
+    public static String parseBearerToken(String authorizationHeader) {
+        if (StringUtils.hasText(authorizationHeader) && authorizationHeader.startsWith("Bearer ")) {
+            return authorizationHeader.substring(7);
+        }
+        return null;
+    }
+
+    public String getUserNameFromJwtToken(String token) {
+        return jwtParser.parseSignedClaims(token).getPayload().getSubject();
+    }
+
+    public boolean validateJwtToken(String authToken) {
+        return verify(authToken).isValid();
+    }
+
+    /**
+     * Rebuild the principal from verified claims.
+     * @return the principal, or null if the token predates the user claims
+     */
+    public UserDetailsImpl getUserDetailsFromClaims(Claims claims) {
+        Long id = claims.get(CLAIM_ID, Long.class);
+        Integer tokenVersion = claims.get(CLAIM_TOKEN_VERSION, Integer.class);
+        if (id == null || tokenVersion == null) {
+            return null;
+        }
+
+        return UserDetailsImpl
+                .builder()
+                .id(id)
+                .username(claims.getSubject())
+                .firstName(claims.get(CLAIM_FIRST_NAME, String.class))
+                .lastName(claims.get(CLAIM_LAST_NAME, String.class))
+                .admin(role(claims) == Role.ADMIN)
+                .tokenVersion(tokenVersion)
+                .build();
+    }
+
+    private static Role role(Claims claims) {
+        String role = claims.get(CLAIM_ROLE, String.class);
+        return role != null ? Role.valueOf(role) : Role.of(claims.get(CLAIM_ADMIN, Boolean.class));
     }
 }
@@ -0,0 +1,29 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * Outcome of a single-pass token verification: either the verified claims or the reason of the failure.
+ */
+public record JwtVerification(Claims claims, Failure failure) {
+
+    public enum Failure {
+        INVALID_SIGNATURE,
+        MALFORMED,
+        EXPIRED,
+        UNSUPPORTED,
+        EMPTY
+    }
+
+    public static JwtVerification valid(Claims claims) {
+        return new JwtVerification(claims, null);
+    }
+
+    public static JwtVerification failed(Failure failure) {
+        return new JwtVerification(null, failure);
+    }
+
+    public boolean isValid() {
+        return failure == null;
+    }
+}
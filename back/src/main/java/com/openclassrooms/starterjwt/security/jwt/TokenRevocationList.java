@@ -0,0 +1,147 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import com.openclassrooms.starterjwt.models.RevokedToken;
+import com.openclassrooms.starterjwt.repository.RevokedTokenRepository;
+import com.openclassrooms.starterjwt.util.BloomFilter;
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revoked access tokens, checked on every request without touching the database.
+ * <p>
+ * A Bloom filter answers "not revoked" for almost every token; its rare positives are settled by
+ * an exact map of the revocations that are not expired yet. Both are rebuilt from the
+ * {@code revoked_tokens} table at startup and every {@code oc.app.revocationRefreshMs}, which is how
+ * revocations made by another instance are picked up. A local revocation only reaches them once its
+ * transaction has committed, so a rollback leaves nothing behind.
+ */
+@Slf4j
+@Component
+public class TokenRevocationList {
+    static final String USER_PREFIX = "user:";
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final long accessTokenTtlMs;
+    private final int bloomCapacity;
+
+    private final Map<String, Instant> revoked = new ConcurrentHashMap<>();
+    private volatile BloomFilter bloomFilter;
+    private int bloomFilterCapacity;
+
+    public TokenRevocationList(RevokedTokenRepository revokedTokenRepository,
+                               @Value("${oc.app.jwtExpirationMs}") long accessTokenTtlMs,
+                               @Value("${oc.app.revocationBloomCapacity:10000}") int bloomCapacity) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.accessTokenTtlMs = accessTokenTtlMs;
+        this.bloomCapacity = bloomCapacity;
+    }
+
+    @PostConstruct
+    synchronized void load() {
+        Map<String, Instant> current = new HashMap<>();
+        revokedTokenRepository.findByExpiresAtAfter(Instant.now())
+                .forEach(token -> current.put(token.getTokenId(), token.getExpiresAt()));
+        // Merged in place rather than cleared, so a live revocation is never missing from the map
+        revoked.putAll(current);
+        revoked.keySet().retainAll(current.keySet());
+        rebuildBloomFilter();
+        log.debug("Token revocation list loaded {} entries", revoked.size());
+    }
+
+    public boolean isRevoked(Claims claims) {
+        Long userId = claims.get(JwtUtils.CLAIM_ID, Long.class);
+        return contains(claims.getId()) || (userId != null && contains(USER_PREFIX + userId));
+    }
+
+    /**
+     * Revokes a single access token (logout) until it expires.
+     */
+    public void revokeToken(String tokenId, Instant expiresAt) {
+        add(tokenId, expiresAt);
+    }
+
+    /**
+     * Revokes every access token already issued to a deleted user.
+     */
+    public void revokeUser(Long userId) {
+        add(USER_PREFIX + userId, Instant.now().plusMillis(accessTokenTtlMs));
+    }
+
+    /**
+     * Picks up the revocations made by the other instances.
+     */
+    @Scheduled(fixedDelayString = "${oc.app.revocationRefreshMs:10000}",
+            initialDelayString = "${oc.app.revocationRefreshMs:10000}")
+    public void refresh() {
+        load();
+    }
+
+    /**
+     * Drops the expired revocations and reloads the table.
+     */
+    @Scheduled(fixedDelayString = "${oc.app.revocationPurgeMs:600000}",
+            initialDelayString = "${oc.app.revocationPurgeMs:600000}")
+    public void purge() {
+        int purged = revokedTokenRepository.deleteExpired(Instant.now());
+        load();
+        log.debug("Purged {} expired token revocations", purged);
+    }
+
+    int size() {
+        return revoked.size();
+    }
+
+    private boolean contains(String key) {
+        return key != null && bloomFilter.mightContain(key) && revoked.containsKey(key);
+    }
+
+    // Saved in the caller's transaction, if any, and only then applied in memory
+    private void add(String key, Instant expiresAt) {
+        revokedTokenRepository.save(new RevokedToken(key, expiresAt));
+        afterCommit(() -> remember(key, expiresAt));
+    }
+
+    // Serialized with load(): the row is committed by now, so a reload can't drop it
+    private synchronized void remember(String key, Instant expiresAt) {
+        revoked.put(key, expiresAt);
+        if (revoked.size() > bloomFilterCapacity) {
+            rebuildBloomFilter();
+        } else {
+            bloomFilter.put(key);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // The exact map is filled before the swap, so a lookup never sees a filter missing an entry
+    private void rebuildBloomFilter() {
+        int capacity = Math.max(bloomCapacity, revoked.size() * 2);
+        BloomFilter rebuilt = new BloomFilter(capacity, FALSE_POSITIVE_RATE);
+        revoked.keySet().forEach(rebuilt::put);
+        bloomFilterCapacity = capacity;
+        bloomFilter = rebuilt;
+    }
+}
@@ -0,0 +1,59 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Staleness guard for principals rebuilt from JWT claims.
+ * <p>
+ * Every token carries the user's {@code tokenVersion} at issue time. This guard keeps, in memory,
+ * the minimum version still accepted for the few users whose version has moved (demoted users,
+ * forced logout), so the filter can reject stale tokens without touching the database. Users absent
+ * from the map accept any version. Deleted users are handled by {@link TokenRevocationList}.
+ * <p>
+ * The versions are bumped in {@code users.token_version}, on whichever instance or by hand: every
+ * instance reloads them each {@code oc.app.tokenVersionRefreshMs}.
+ */
+@Slf4j
+@Component
+public class TokenVersionGuard {
+    private final UserRepository userRepository;
+
+    private final Map<Long, Integer> minimumVersions = new ConcurrentHashMap<>();
+
+    public TokenVersionGuard(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    @PostConstruct
+    void load() {
+        Map<Long, Integer> current = new HashMap<>();
+        userRepository.findByTokenVersionGreaterThan(0)
+                .forEach(user -> current.put(user.getId(), user.getTokenVersion()));
+        // Merged in place rather than cleared, so a moved version is never missing from the map
+        minimumVersions.putAll(current);
+        minimumVersions.keySet().retainAll(current.keySet());
+        log.debug("Token version guard loaded {} entries", minimumVersions.size());
+    }
+
+    /**
+     * Picks up the versions bumped since the last load.
+     */
+    @Scheduled(fixedDelayString = "${oc.app.tokenVersionRefreshMs:60000}",
+            initialDelayString = "${oc.app.tokenVersionRefreshMs:60000}")
+    public void refresh() {
+        load();
+    }
+
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        Integer minimum = minimumVersions.get(userId);
+        return minimum == null || tokenVersion >= minimum;
+    }
+}
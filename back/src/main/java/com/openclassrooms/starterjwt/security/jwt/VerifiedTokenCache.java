@@ -0,0 +1,113 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory cache of verified tokens, in front of {@link JwtUtils#verify(String)}.
+ * <p>
+ * Entries are keyed by the SHA-256 digest of the token (the token itself is never kept), bounded in
+ * size with Caffeine's W-TinyLFU eviction and expire at the token's own {@code exp}. Only successful
+ * verifications are stored: a forged or garbage token can never be served as valid and never takes
+ * room in the cache. Hits, misses and evictions are published as {@code cache.*} metrics under the
+ * {@code jwt.verified} name.
+ */
+@Component
+public class VerifiedTokenCache {
+    private static final String CACHE_NAME = "jwt.verified";
+
+    private final JwtUtils jwtUtils;
+
+    private final Cache<TokenDigest, JwtVerification> cache;
+
+    public VerifiedTokenCache(JwtUtils jwtUtils,
+                              MeterRegistry meterRegistry,
+                              @Value("${oc.app.jwtCacheEnabled:false}") boolean enabled,
+                              @Value("${oc.app.jwtCacheMaxSize:10000}") long maxSize) {
+        this.jwtUtils = jwtUtils;
+        this.cache = enabled ? buildCache(maxSize, meterRegistry) : null;
+    }
+
+    private static Cache<TokenDigest, JwtVerification> buildCache(long maxSize, MeterRegistry meterRegistry) {
+        Cache<TokenDigest, JwtVerification> cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new UntilTokenExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        return cache;
+    }
+
+    public JwtVerification verify(String token) {
+        if (cache == null) {
+            return jwtUtils.verify(token);
+        }
+
+        TokenDigest digest = TokenDigest.of(token);
+        JwtVerification verification = cache.getIfPresent(digest);
+        if (verification != null) {
+            return verification;
+        }
+
+        verification = jwtUtils.verify(token);
+        if (verification.isValid() && verification.claims().getExpiration() != null) {
+            cache.put(digest, verification);
+        }
+        return verification;
+    }
+
+    long estimatedSize() {
+        return cache == null ? 0 : cache.estimatedSize();
+    }
+
+    void cleanUp() {
+        if (cache != null) {
+            cache.cleanUp();
+        }
+    }
+
+    /**
+     * First 128 bits of the SHA-256 of the token: collision-safe for a cache key and two longs in memory.
+     */
+    record TokenDigest(long high, long low) {
+        static TokenDigest of(String token) {
+            try {
+                byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+                ByteBuffer buffer = ByteBuffer.wrap(hash);
+                return new TokenDigest(buffer.getLong(), buffer.getLong());
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        }
+    }
+
+    private static class UntilTokenExpiry implements Expiry<TokenDigest, JwtVerification> {
+        @Override
+        public long expireAfterCreate(TokenDigest key, JwtVerification value, long currentTime) {
+            Date expiration = value.claims().getExpiration();
+            return Math.max(0, TimeUnit.MILLISECONDS.toNanos(expiration.getTime() - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(TokenDigest key, JwtVerification value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(TokenDigest key, JwtVerification value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt encoder whose cost is either fixed or calibrated on the current machine, and which asks for
+ * an upgrade of any hash stored at a different cost (higher or lower).
+ */
+@Slf4j
+@Getter
+public class BCryptCostPasswordEncoder extends BCryptPasswordEncoder {
+    private static final Pattern BCRYPT_COST = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$");
+
+    static final int MIN_STRENGTH = 4;
+    static final int MAX_STRENGTH = 31;
+
+    private final int strength;
+
+    public BCryptCostPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+
+    /**
+     * Build an encoder with the highest cost whose hash time stays within the target.
+     */
+    public static BCryptCostPasswordEncoder calibrated(long targetMs, int minStrength, int maxStrength) {
+        int strength = calibrate(targetMs, minStrength, maxStrength);
+        log.info("BCrypt cost calibrated to {} for a target of {} ms", strength, targetMs);
+        return new BCryptCostPasswordEncoder(strength);
+    }
+
+    static int calibrate(long targetMs, int minStrength, int maxStrength) {
+        int strength = Math.max(MIN_STRENGTH, minStrength);
+        int upperBound = Math.min(MAX_STRENGTH, maxStrength);
+        while (strength < upperBound) {
+            // Each extra cost doubles the work: stop before the next one overshoots the target
+            if (measureMs(strength) * 2 > targetMs) {
+                break;
+            }
+            strength++;
+        }
+        return strength;
+    }
+
+    /**
+     * Best of two runs, so that the first (cold) hash does not skew the result.
+     */
+    static long measureMs(int strength) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 2; i++) {
+            long start = System.nanoTime();
+            encoder.encode("calibration");
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1_000_000;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != strength;
+    }
+}
@@ -0,0 +1,130 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.openclassrooms.starterjwt.exception.TooManyRequestsException;
+import com.openclassrooms.starterjwt.models.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process throttle in front of the login, with one token bucket per normalized email and one per
+ * client IP.
+ * <p>
+ * Each bucket is a single {@link AtomicLong} updated with a CAS loop (GCRA: the long holds the
+ * theoretical arrival time of the next attempt), so an allowed attempt costs a map lookup and a CAS.
+ * Rejected attempts are charged too, which makes the Retry-After grow with every attempt made while
+ * throttled, up to {@code loginThrottleMaxDelayMs}. Buckets live in a size-bounded Caffeine cache and
+ * are evicted once idle long enough to be full again, so memory stays bounded under a flood of
+ * distinct emails or addresses.
+ */
+@Component
+public class LoginThrottle {
+    private final boolean enabled;
+    private final Ticker ticker;
+    private final Limit emailLimit;
+    private final Limit ipLimit;
+
+    @Autowired
+    public LoginThrottle(@Value("${oc.app.loginThrottleEnabled:true}") boolean enabled,
+                         @Value("${oc.app.loginThrottleEmailBurst:5}") int emailBurst,
+                         @Value("${oc.app.loginThrottleEmailRefillMs:12000}") long emailRefillMs,
+                         @Value("${oc.app.loginThrottleIpBurst:50}") int ipBurst,
+                         @Value("${oc.app.loginThrottleIpRefillMs:200}") long ipRefillMs,
+                         @Value("${oc.app.loginThrottleMaxDelayMs:900000}") long maxDelayMs,
+                         @Value("${oc.app.loginThrottleMaxKeys:100000}") long maxKeys,
+                         MeterRegistry meterRegistry) {
+        this(enabled, emailBurst, emailRefillMs, ipBurst, ipRefillMs, maxDelayMs, maxKeys, meterRegistry, Ticker.systemTicker());
+    }
+
+    LoginThrottle(boolean enabled, int emailBurst, long emailRefillMs, int ipBurst, long ipRefillMs,
+                  long maxDelayMs, long maxKeys, MeterRegistry meterRegistry, Ticker ticker) {
+        this.enabled = enabled;
+        this.ticker = ticker;
+        this.emailLimit = new Limit("email", emailBurst, emailRefillMs, maxDelayMs, maxKeys, meterRegistry, ticker);
+        this.ipLimit = new Limit("ip", ipBurst, ipRefillMs, maxDelayMs, maxKeys, meterRegistry, ticker);
+    }
+
+    /**
+     * Take one login attempt from the email and the IP buckets.
+     * @throws TooManyRequestsException if either bucket is empty
+     */
+    public void acquire(String email, String clientIp) {
+        if (!enabled) {
+            return;
+        }
+        long now = ticker.read();
+        long waitNanos = Math.max(
+                emailLimit.acquire(normalize(email), now),
+                ipLimit.acquire(clientIp, now));
+        if (waitNanos > 0) {
+            throw new TooManyRequestsException(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L)));
+        }
+    }
+
+    static String normalize(String email) {
+        return email == null ? "" : User.normalizeEmail(email);
+    }
+
+    long size() {
+        emailLimit.buckets.cleanUp();
+        ipLimit.buckets.cleanUp();
+        return emailLimit.buckets.estimatedSize() + ipLimit.buckets.estimatedSize();
+    }
+
+    private static final class Limit {
+        private final long intervalNanos;
+        private final long toleranceNanos;
+        private final long maxDelayNanos;
+        private final Cache<String, AtomicLong> buckets;
+        private final Counter rejected;
+
+        Limit(String name, int burst, long refillMs, long maxDelayMs, long maxKeys, MeterRegistry meterRegistry, Ticker ticker) {
+            this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(refillMs);
+            this.toleranceNanos = intervalNanos * burst;
+            this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+            // Idle for tolerance + max delay means the bucket is full again: same as a new one
+            this.buckets = Caffeine.newBuilder()
+                    .maximumSize(maxKeys)
+                    .expireAfterAccess(Duration.ofNanos(toleranceNanos + maxDelayNanos))
+                    .ticker(ticker)
+                    .build();
+            this.rejected = Counter.builder("auth.throttle.rejected")
+                    .description("Login attempts rejected by the throttle")
+                    .tag("key", name)
+                    .register(meterRegistry);
+        }
+
+        /**
+         * @return 0 if the attempt is allowed, otherwise the nanoseconds to wait
+         */
+        long acquire(String key, long now) {
+            AtomicLong theoreticalArrival = buckets.get(key, k -> new AtomicLong(now - toleranceNanos));
+            while (true) {
+                long current = theoreticalArrival.get();
+                long next = Math.max(current, now) + intervalNanos;
+                long wait = next - now - toleranceNanos;
+                if (wait <= 0) {
+                    if (theoreticalArrival.compareAndSet(current, next)) {
+                        return 0;
+                    }
+                    continue;
+                }
+                // Throttled attempts still push the bucket further, up to the maximum delay
+                long penalized = Math.min(next, now + toleranceNanos + maxDelayNanos);
+                if (theoreticalArrival.compareAndSet(current, Math.max(current, penalized))) {
+                    rejected.increment();
+                    return Math.min(wait, maxDelayNanos);
+                }
+            }
+        }
+    }
+}
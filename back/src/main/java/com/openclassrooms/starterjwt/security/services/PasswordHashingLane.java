@@ -0,0 +1,119 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import com.openclassrooms.starterjwt.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Dedicated, bounded executor for the BCrypt work of login and registration.
+ * <p>
+ * Password hashing is CPU bound and slow by design. Running it on a small fixed pool with a bounded
+ * queue caps the number of request threads that can be parked on a login burst: once the queue is
+ * full the caller fails fast with {@link ServiceUnavailableException} (503 + Retry-After) and the
+ * remaining request threads keep serving the cheap reads.
+ */
+@Component
+public class PasswordHashingLane {
+    private final ThreadPoolExecutor executor;
+
+    private final long retryAfterSeconds;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Counter rejected;
+
+    public PasswordHashingLane(@Value("${oc.app.hashingThreads:0}") int threads,
+                               @Value("${oc.app.hashingQueueCapacity:64}") int queueCapacity,
+                               @Value("${oc.app.hashingRetryAfterSeconds:1}") long retryAfterSeconds,
+                               MeterRegistry meterRegistry) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("password-hashing-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.meterRegistry = meterRegistry;
+        this.rejected = Counter.builder("auth.hashing.rejected")
+                .description("Password hashing tasks rejected because the queue was full")
+                .register(meterRegistry);
+        Gauge.builder("auth.hashing.queue.depth", executor, e -> e.getQueue().size())
+                .description("Password hashing tasks waiting for a thread")
+                .register(meterRegistry);
+        Gauge.builder("auth.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Password hashing tasks currently running")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run the task on the hashing pool and wait for its result.
+     * @param operation name of the operation, used as the latency metric tag
+     * @throws ServiceUnavailableException if the queue is full
+     */
+    public <T> T run(String operation, Supplier<T> task) {
+        Timer latency = Timer.builder("auth.hashing.latency")
+                .description("Time spent hashing or verifying a password")
+                .tag("operation", operation)
+                .register(meterRegistry);
+
+        Future<T> future;
+        try {
+            future = executor.submit(() -> latency.record(task));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceUnavailableException(retryAfterSeconds);
+        }
+
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException(retryAfterSeconds);
+        }
+    }
+
+    /**
+     * Queue a background task on the hashing pool without waiting for it.
+     * @return false if the queue is full and the task was dropped
+     */
+    public boolean offer(String operation, Runnable task) {
+        Timer latency = Timer.builder("auth.hashing.latency")
+                .description("Time spent hashing or verifying a password")
+                .tag("operation", operation)
+                .register(meterRegistry);
+        try {
+            executor.execute(() -> latency.record(task));
+            return true;
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            return false;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
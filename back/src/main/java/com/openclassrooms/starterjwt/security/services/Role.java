@@ -0,0 +1,29 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Set;
+
+/**
+ * Roles carried by the JWT {@code role} claim, each mapped to a shared immutable authority set so
+ * building a principal never allocates authorities.
+ */
+public enum Role {
+    USER(Set.of(new SimpleGrantedAuthority("ROLE_USER"))),
+    ADMIN(Set.of(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_ADMIN")));
+
+    private final Set<GrantedAuthority> authorities;
+
+    Role(Set<GrantedAuthority> authorities) {
+        this.authorities = authorities;
+    }
+
+    public static Role of(Boolean admin) {
+        return Boolean.TRUE.equals(admin) ? ADMIN : USER;
+    }
+
+    public Set<GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+}
@@ -1,6 +1,7 @@
 package com.openclassrooms.starterjwt.security.services;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.openclassrooms.starterjwt.models.User;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -8,7 +9,6 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.Objects;
 
 @Builder
@@ -27,11 +27,30 @@ public class UserDetailsImpl implements UserDetails {
 
     private Boolean admin;
 
+    private Integer tokenVersion;
+
     @JsonIgnore
     private String password;
 
+    public static UserDetailsImpl build(User user) {
+        return UserDetailsImpl
+                .builder()
+                .id(user.getId())
+                .username(user.getEmail())
+                .lastName(user.getLastName())
+                .firstName(user.getFirstName())
+                .admin(user.isAdmin())
+                .tokenVersion(user.getTokenVersion())
+                .password(user.getPassword())
+                .build();
+    }
+
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return new HashSet<GrantedAuthority>();
+        return getRole().getAuthorities();
+    }
+
+    public Role getRole() {
+        return Role.of(admin);
     }
 
     @Override
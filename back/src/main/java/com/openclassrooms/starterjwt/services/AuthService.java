@@ -6,8 +6,12 @@ import com.openclassrooms.starterjwt.payload.request.SignupRequest;
 import com.openclassrooms.starterjwt.payload.response.JwtResponse;
 import com.openclassrooms.starterjwt.repository.UserRepository;
 import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.security.jwt.JwtVerification;
+import com.openclassrooms.starterjwt.security.jwt.TokenRevocationList;
+import com.openclassrooms.starterjwt.security.services.PasswordHashingLane;
 import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -22,33 +26,81 @@ public class AuthService {
     private final JwtUtils jwtUtils;
     private final PasswordEncoder passwordEncoder;
     private final UserRepository userRepository;
+    private final PasswordHashingLane passwordHashingLane;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRevocationList tokenRevocationList;
+    private final RegisteredEmails registeredEmails;
 
     public JwtResponse authenticateUser(LoginRequest loginRequest) {
-        Authentication authentication = authenticationManager.authenticate(
+        // The BCrypt check runs on the hashing lane, not on the request thread pool
+        Authentication authentication = passwordHashingLane.run("login", () -> authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
                         loginRequest.getEmail(),
                         loginRequest.getPassword()
                 )
-        );
+        ));
         String jwt = jwtUtils.generateJwtToken(authentication);
         UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        rehashIfNeeded(userDetails, loginRequest.getPassword());
+
+        return toJwtResponse(jwt, userDetails);
+    }
 
-        User user = userRepository.findByEmail(userDetails.getUsername())
-                .orElseThrow(() -> new RuntimeException("User not found after authentication"));
+    /**
+     * Exchange a refresh token for a new access token and a new refresh token.
+     * @throws org.springframework.security.authentication.BadCredentialsException if the refresh token is not usable
+     */
+    public JwtResponse refresh(String refreshToken) {
+        UserDetailsImpl userDetails = UserDetailsImpl.build(refreshTokenService.consume(refreshToken));
+        return toJwtResponse(jwtUtils.generateJwtToken(userDetails), userDetails);
+    }
+
+    /**
+     * Revoke the refresh token and, until it expires, the access token. Both are optional.
+     */
+    public void logout(String accessToken, String refreshToken) {
+        if (refreshToken != null) {
+            refreshTokenService.revoke(refreshToken);
+        }
+        if (accessToken != null) {
+            JwtVerification verification = jwtUtils.verify(accessToken);
+            if (verification.isValid() && verification.claims().getId() != null) {
+                tokenRevocationList.revokeToken(
+                        verification.claims().getId(),
+                        verification.claims().getExpiration().toInstant());
+            }
+        }
+    }
 
+    private JwtResponse toJwtResponse(String jwt, UserDetailsImpl userDetails) {
         return new JwtResponse(
                 jwt,
                 userDetails.getId(),
                 userDetails.getUsername(),
                 userDetails.getFirstName(),
                 userDetails.getLastName(),
-                user.isAdmin()
+                Boolean.TRUE.equals(userDetails.getAdmin()),
+                refreshTokenService.issue(userDetails.getId())
         );
     }
 
+    /**
+     * Re-encode, in the background, a hash stored at another cost than the current one.
+     * Dropped when the hashing lane is busy: the next login will try again.
+     */
+    private void rehashIfNeeded(UserDetailsImpl userDetails, String rawPassword) {
+        String storedPassword = userDetails.getPassword();
+        if (storedPassword == null || !passwordEncoder.upgradeEncoding(storedPassword)) {
+            return;
+        }
+        passwordHashingLane.offer("rehash", () -> userRepository.updatePassword(
+                userDetails.getId(),
+                storedPassword,
+                passwordEncoder.encode(rawPassword)));
+    }
 
     public void registerUser(SignupRequest signUpRequest) {
-        if (userRepository.existsByEmail(signUpRequest.getEmail())) {
+        if (registeredEmails.isTaken(signUpRequest.getEmail())) {
             throw new IllegalArgumentException("This Email is already taken");
         }
 
@@ -56,13 +108,18 @@ public class AuthService {
                 signUpRequest.getEmail(),
                 signUpRequest.getLastName(),
                 signUpRequest.getFirstName(),
-                passwordEncoder.encode(signUpRequest.getPassword()),
+                passwordHashingLane.run("register", () -> passwordEncoder.encode(signUpRequest.getPassword())),
                 false
         );
 
-        userRepository.save(user);
+        try {
+            userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            // Registered since the filter was built, by another instance or a concurrent signup
+            throw new IllegalArgumentException("This Email is already taken");
+        }
+        registeredEmails.added(user.getEmail());
     }
 
     }
 
-
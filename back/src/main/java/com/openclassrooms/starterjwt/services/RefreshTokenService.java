@@ -0,0 +1,81 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.models.RefreshToken;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.RefreshTokenRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * Opaque, single-use refresh tokens. Only their SHA-256 is stored; each refresh consumes the token
+ * and the caller issues a new one.
+ */
+@Service
+public class RefreshTokenService {
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+    private final long refreshExpirationMs;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               UserRepository userRepository,
+                               @Value("${oc.app.jwtRefreshExpirationMs:2592000000}") long refreshExpirationMs) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userRepository = userRepository;
+        this.refreshExpirationMs = refreshExpirationMs;
+    }
+
+    public String issue(Long userId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        refreshTokenRepository.save(new RefreshToken()
+                .setTokenHash(digest(token))
+                .setUser(userRepository.getReferenceById(userId))
+                .setExpiresAt(Instant.now().plusMillis(refreshExpirationMs)));
+        return token;
+    }
+
+    /**
+     * Consume a refresh token.
+     * @return the user it was issued to
+     * @throws BadCredentialsException if the token is unknown, expired or already used
+     */
+    public User consume(String token) {
+        RefreshToken refreshToken = refreshTokenRepository.findByTokenHash(digest(token))
+                .orElseThrow(() -> new BadCredentialsException("Unknown refresh token"));
+
+        // Deleted first, so a token replayed concurrently only wins once
+        if (refreshTokenRepository.revokeById(refreshToken.getId()) == 0
+                || refreshToken.getExpiresAt().isBefore(Instant.now())) {
+            throw new BadCredentialsException("Expired refresh token");
+        }
+        return refreshToken.getUser();
+    }
+
+    public void revoke(String token) {
+        refreshTokenRepository.revokeByTokenHash(digest(token));
+    }
+
+    static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.util.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Answers "is this email already registered?" at signup, usually without querying the database.
+ * <p>
+ * A Bloom filter of the normalized registered emails settles the definite negatives, which are almost
+ * every signup; only its positives run the {@code existsByNormalizedEmail} query. The filter is built by
+ * streaming {@code users.email_normalized} once the application is ready, then rebuilt every
+ * {@code oc.app.emailFilterRefreshMs} to drop the deleted emails and pick up the ones registered by another
+ * instance. An email missed in between is still rejected by the unique constraint on
+ * {@code users.email_normalized}.
+ * <p>
+ * Checks, false positives, the expected false positive rate and the size of the filter are published as
+ * {@code registration.email.filter.*} metrics.
+ */
+@Slf4j
+@Component
+public class RegisteredEmails {
+    private static final String METRIC_PREFIX = "registration.email.filter";
+
+    private final UserRepository userRepository;
+    private final int minCapacity;
+    private final double falsePositiveRate;
+
+    // Null until the first build: every email might be registered
+    private volatile BloomFilter bloomFilter;
+    private volatile boolean rebuilding;
+    private final Set<String> addedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger deletedSinceRebuild = new AtomicInteger();
+
+    private final Counter negatives;
+    private final Counter positives;
+    private final Counter falsePositives;
+
+    public RegisteredEmails(UserRepository userRepository, MeterRegistry meterRegistry,
+                            @Value("${oc.app.emailFilterCapacity:100000}") int minCapacity,
+                            @Value("${oc.app.emailFilterFalsePositiveRate:0.01}") double falsePositiveRate) {
+        this.userRepository = userRepository;
+        this.minCapacity = minCapacity;
+        this.falsePositiveRate = falsePositiveRate;
+        this.negatives = checkCounter(meterRegistry, "negative");
+        this.positives = checkCounter(meterRegistry, "positive");
+        this.falsePositives = Counter.builder(METRIC_PREFIX + ".false.positives")
+                .description("Positives of the filter that the database didn't confirm")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".expected.false.positive.rate", this,
+                        emails -> emails.bloomFilter == null ? 1 : emails.bloomFilter.expectedFalsePositiveRate())
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".bytes", this,
+                        emails -> emails.bloomFilter == null ? 0 : emails.bloomFilter.sizeInBytes())
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".deleted", deletedSinceRebuild, AtomicInteger::get)
+                .description("Deleted emails still in the filter until the next rebuild")
+                .register(meterRegistry);
+    }
+
+    private static Counter checkCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder(METRIC_PREFIX + ".checks")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return whether a user is registered with this email, queried only on a positive of the filter
+     */
+    public boolean isTaken(String email) {
+        String normalized = User.normalizeEmail(email);
+        BloomFilter current = bloomFilter;
+        if (current != null && !current.mightContain(normalized)) {
+            negatives.increment();
+            return false;
+        }
+        positives.increment();
+        boolean taken = userRepository.existsByNormalizedEmail(normalized);
+        if (!taken && current != null) {
+            falsePositives.increment();
+        }
+        return taken;
+    }
+
+    /**
+     * Adds the email of a user just registered.
+     */
+    public synchronized void added(String email) {
+        String normalized = User.normalizeEmail(email);
+        if (bloomFilter != null) {
+            bloomFilter.put(normalized);
+        }
+        if (rebuilding) {
+            addedDuringRebuild.add(normalized);
+        }
+    }
+
+    /**
+     * Counts the email of a deleted user: it can't be removed from the filter, and costs a query on signup
+     * until the next rebuild.
+     */
+    public void deleted() {
+        deletedSinceRebuild.incrementAndGet();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${oc.app.emailFilterRefreshMs:3600000}",
+            initialDelayString = "${oc.app.emailFilterRefreshMs:3600000}")
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        rebuilding = true;
+        addedDuringRebuild.clear();
+        int deleted = deletedSinceRebuild.get();
+        // Sized for twice the current users, so that signups don't degrade the filter before the next rebuild
+        int capacity = (int) Math.min(Integer.MAX_VALUE, Math.max(minCapacity, userRepository.count() * 2));
+        BloomFilter rebuilt = new BloomFilter(capacity, falsePositiveRate);
+        int count = 0;
+        try (Stream<String> emails = userRepository.streamNormalizedEmails()) {
+            for (String email : (Iterable<String>) emails::iterator) {
+                rebuilt.put(email);
+                count++;
+            }
+        } catch (RuntimeException e) {
+            // The current filter stays in use, a partial one would miss registered emails
+            rebuilding = false;
+            throw e;
+        }
+        synchronized (this) {
+            // Emails registered while streaming may have been read before their insert
+            addedDuringRebuild.forEach(rebuilt::put);
+            bloomFilter = rebuilt;
+            rebuilding = false;
+        }
+        deletedSinceRebuild.addAndGet(-deleted);
+        log.info("Registered email filter built with {} emails, {} bytes, expected false positive rate {}",
+                count, rebuilt.sizeInBytes(), String.format(Locale.ROOT, "%.4f", rebuilt.expectedFalsePositiveRate()));
+    }
+}
@@ -0,0 +1,43 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.models.Session;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Position after the last session of a page, in the {@code (date, id)} order of the listing.
+ * Handed to clients as an opaque URL-safe token.
+ */
+public record SessionCursor(Date date, Long id) {
+
+    public static SessionCursor after(Session session) {
+        return new SessionCursor(session.getDate(), session.getId());
+    }
+
+    /**
+     * @return the cursor, or null for a null or empty token
+     * @throws BadRequestException if the token wasn't produced by {@link #encode()}
+     */
+    public static SessionCursor decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII);
+            int separator = decoded.indexOf(':');
+            return new SessionCursor(
+                    new Date(Long.parseLong(decoded.substring(0, separator))),
+                    Long.parseLong(decoded.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    public String encode() {
+        String raw = date.getTime() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,11 @@
+package com.openclassrooms.starterjwt.services;
+
+import java.util.Date;
+
+/**
+ * Optional criteria of the session listing; null fields don't filter.
+ * @param from first date included
+ * @param to first date excluded
+ */
+public record SessionFilter(Date from, Date to, Long teacherId) {
+}
@@ -0,0 +1,233 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Serialized JSON of single sessions and of listing pages, in front of the database, the mapper and Jackson.
+ * A session is stored with its ETag, so that a conditional read is answered without the database either.
+ * <p>
+ * The bytes are copied to direct buffers, so cached responses stay out of the Java heap and the GC never
+ * copies them. The cache is bounded by the total size of these buffers. Entries are invalidated by the
+ * {@link SessionService} mutations: a participation change only drops the session and the pages showing it,
+ * anything that can move a session in the listing drops every page. Inside a transaction, they are dropped
+ * again once it commits: a load between the first invalidation and the commit still reads the old rows.
+ * <p>
+ * A value read from the database while a mutation is invalidating may be stale: loads check the
+ * invalidation generation after storing their value and drop it if it moved. Hits, misses and evictions are
+ * published as {@code cache.*} metrics under the {@code session.json} name, along with the
+ * {@code session.json.cache.bytes} gauge and the {@code session.json.cache.invalidations} counters.
+ */
+@Component
+public class SessionJsonCache {
+    private static final String CACHE_NAME = "session.json";
+
+    private final Cache<Object, Entry> cache;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final Counter sessionInvalidations;
+
+    private final Counter pageInvalidations;
+
+    public SessionJsonCache(MeterRegistry meterRegistry,
+                            @Value("${oc.app.sessionCacheEnabled:false}") boolean enabled,
+                            @Value("${oc.app.sessionCacheMaxBytes:33554432}") long maxBytes) {
+        this.cache = enabled ? buildCache(maxBytes, meterRegistry) : null;
+        this.sessionInvalidations = invalidationCounter(meterRegistry, "session");
+        this.pageInvalidations = invalidationCounter(meterRegistry, "page");
+    }
+
+    private static Cache<Object, Entry> buildCache(long maxBytes, MeterRegistry meterRegistry) {
+        Cache<Object, Entry> cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Object key, Entry entry) -> entry.json().capacity())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        Gauge.builder(CACHE_NAME + ".cache.bytes", cache, c -> {
+                    // The weighted size is maintained asynchronously, apply the pending writes first
+                    c.cleanUp();
+                    return c.policy().eviction()
+                            .map(eviction -> eviction.weightedSize().orElse(0))
+                            .orElse(0L);
+                })
+                .description("Size of the cached JSON, off heap")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        return cache;
+    }
+
+    private static Counter invalidationCounter(MeterRegistry meterRegistry, String kind) {
+        return Counter.builder(CACHE_NAME + ".cache.invalidations")
+                .tag("kind", kind)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param loader reads the session, called on a miss
+     * @return the JSON is serialized on a miss only if the cache is enabled, otherwise when first asked for
+     */
+    public SessionJson getSession(Long id, Supplier<LoadedSession> loader) {
+        if (cache == null) {
+            LoadedSession session = loader.get();
+            return new SessionJson(session.etag(), () -> ByteBuffer.wrap(session.json().get()));
+        }
+        // Stored as a page of its own, so that it is dropped with the pages showing it
+        Entry entry = get(new SessionKey(id), () -> {
+            LoadedSession session = loader.get();
+            return Entry.of(new SerializedPage(session.json().get(), null, new long[]{id}), session.etag());
+        });
+        return new SessionJson(entry.etag(), entry::json);
+    }
+
+    /**
+     * @param loader serializes the page, called on a miss
+     */
+    public Page getPage(PageKey key, Supplier<SerializedPage> loader) {
+        if (cache == null) {
+            SerializedPage page = loader.get();
+            return new Page(ByteBuffer.wrap(page.json()), page.nextCursor());
+        }
+        Entry entry = get(key, () -> Entry.of(loader.get(), null));
+        return new Page(entry.json(), entry.nextCursor());
+    }
+
+    private Entry get(Object key, Supplier<Entry> loader) {
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null) {
+            return entry.duplicate();
+        }
+
+        long loadGeneration = generation.get();
+        entry = loader.get();
+        cache.put(key, entry);
+        if (generation.get() != loadGeneration) {
+            // A mutation ran while the value was read, it may not be in it
+            cache.invalidate(key);
+        }
+        return entry.duplicate();
+    }
+
+    /**
+     * Drop the session and the pages showing it, after a change that can't move it in the listing.
+     */
+    public void invalidateSession(Long id) {
+        sessionInvalidations.increment();
+        if (cache == null) {
+            return;
+        }
+        dropSession(id);
+        afterCommit(() -> dropSession(id));
+    }
+
+    /**
+     * Drop the session, if any, and every page.
+     */
+    public void invalidateListing(Long id) {
+        if (id != null) {
+            sessionInvalidations.increment();
+        }
+        pageInvalidations.increment();
+        if (cache == null) {
+            return;
+        }
+        dropListing(id);
+        afterCommit(() -> dropListing(id));
+    }
+
+    private void dropSession(Long id) {
+        generation.incrementAndGet();
+        cache.invalidate(new SessionKey(id));
+        cache.asMap().entrySet().removeIf(entry -> entry.getKey() instanceof PageKey
+                && Arrays.binarySearch(entry.getValue().sessionIds(), id) >= 0);
+    }
+
+    private void dropListing(Long id) {
+        generation.incrementAndGet();
+        if (id != null) {
+            cache.invalidate(new SessionKey(id));
+        }
+        cache.asMap().keySet().removeIf(key -> key instanceof PageKey);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+
+    long estimatedSize() {
+        return cache == null ? 0 : cache.estimatedSize();
+    }
+
+    /**
+     * Key of a listing page.
+     */
+    public record PageKey(SessionFilter filter, String cursor, int size) {
+    }
+
+    /**
+     * A listing page as serialized on a miss.
+     * @param sessionIds ids of the sessions in the page
+     */
+    public record SerializedPage(byte[] json, String nextCursor, long[] sessionIds) {
+    }
+
+    /**
+     * A listing page as served.
+     * @param json read-only view of the JSON array, positioned at its start
+     */
+    public record Page(ByteBuffer json, String nextCursor) {
+    }
+
+    /**
+     * A session as read on a miss.
+     * @param json serializes the session
+     */
+    public record LoadedSession(String etag, Supplier<byte[]> json) {
+    }
+
+    /**
+     * A session as served.
+     * @param json read-only view of the JSON, positioned at its start
+     */
+    public record SessionJson(String etag, Supplier<ByteBuffer> json) {
+    }
+
+    private record SessionKey(Long id) {
+    }
+
+    private record Entry(ByteBuffer json, String nextCursor, long[] sessionIds, String etag) {
+        static Entry of(SerializedPage page, String etag) {
+            ByteBuffer json = ByteBuffer.allocateDirect(page.json().length);
+            json.put(page.json()).flip();
+            long[] sessionIds = page.sessionIds().clone();
+            Arrays.sort(sessionIds);
+            return new Entry(json.asReadOnlyBuffer(), page.nextCursor(), sessionIds, etag);
+        }
+
+        // Each reader gets its own position
+        Entry duplicate() {
+            return new Entry(json.duplicate(), nextCursor, sessionIds, etag);
+        }
+    }
+}
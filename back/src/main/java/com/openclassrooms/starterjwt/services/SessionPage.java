@@ -0,0 +1,12 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.models.Session;
+
+import java.util.List;
+
+/**
+ * A page of the session listing.
+ * @param nextCursor token of the next page, null on the last one
+ */
+public record SessionPage(List<Session> sessions, String nextCursor) {
+}
@@ -2,93 +2,274 @@ package com.openclassrooms.starterjwt.services;
 
 import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.exception.PreconditionFailedException;
+import com.openclassrooms.starterjwt.models.Participation;
 import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.ParticipationRepository;
+import com.openclassrooms.starterjwt.repository.SessionPatch;
 import com.openclassrooms.starterjwt.repository.SessionRepository;
-import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.repository.SessionRow;
+import com.openclassrooms.starterjwt.repository.SessionSpecifications;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
 
+/**
+ * Sessions and their participants. Reads run in read-only transactions and each mutation in a transaction
+ * of its own; {@link SessionJsonCache} entries are dropped again once a mutation commits.
+ */
 @Service
 public class SessionService {
     private final SessionRepository sessionRepository;
 
-    private final UserRepository userRepository;
+    private final ParticipationRepository participationRepository;
 
-    public SessionService(SessionRepository sessionRepository, UserRepository userRepository) {
+    // Bounds the IN list of findParticipantIds on unpaged listings
+    private static final int PARTICIPANT_QUERY_BATCH_SIZE = 1000;
+
+    private final SessionJsonCache sessionJsonCache;
+
+    public SessionService(SessionRepository sessionRepository, ParticipationRepository participationRepository,
+                          SessionJsonCache sessionJsonCache) {
         this.sessionRepository = sessionRepository;
-        this.userRepository = userRepository;
+        this.participationRepository = participationRepository;
+        this.sessionJsonCache = sessionJsonCache;
     }
 
+    @Transactional
     public Session create(Session session) {
-        return this.sessionRepository.save(session);
+        Session created = this.sessionRepository.save(session);
+        sessionJsonCache.invalidateListing(null);
+        return created;
     }
 
     /**
      * Delete the session by  ID
+     * @param expectedVersion the version the session must be at, null for any
      * @throws NotFoundException if the session doesnt exist
+     * @throws PreconditionFailedException if the session is at another version
      */
-    public void delete(Long id) {
-        if (!sessionRepository.existsById(id)) {
-            throw new NotFoundException();
+    @Transactional
+    public void delete(Long id, Long expectedVersion) {
+        int deleted = expectedVersion == null
+                ? sessionRepository.deleteSession(id)
+                : sessionRepository.deleteSession(id, expectedVersion);
+        if (deleted == 0) {
+            throw notFoundOrModified(id, expectedVersion);
         }
-        sessionRepository.deleteById(id);
+        sessionJsonCache.invalidateListing(id);
     }
 
+    @Transactional(readOnly = true)
     public List<Session> findAll() {
         return this.sessionRepository.findAll();
     }
 
+    /**
+     * Every session matching the filter, in {@code (date, id)} order.
+     */
+    @Transactional(readOnly = true)
+    public List<Session> findAll(SessionFilter filter) {
+        return sessionRepository.findAll(matching(filter), SessionSpecifications.KEYSET_ORDER);
+    }
+
+    /**
+     * One page of the sessions matching the filter, in {@code (date, id)} order, starting after the cursor.
+     * One extra row is read to know whether a next page exists, no count query is run.
+     */
+    @Transactional(readOnly = true)
+    public SessionPage findPage(SessionFilter filter, SessionCursor cursor, int size) {
+        Specification<Session> specification = matching(filter);
+        if (cursor != null) {
+            specification = specification.and(SessionSpecifications.after(cursor.date(), cursor.id()));
+        }
+        List<Session> sessions = sessionRepository.findBy(specification, query -> query
+                .sortBy(SessionSpecifications.KEYSET_ORDER)
+                .limit(size + 1)
+                .all());
+
+        if (sessions.size() <= size) {
+            return new SessionPage(sessions, null);
+        }
+        List<Session> page = sessions.subList(0, size);
+        return new SessionPage(page, SessionCursor.after(page.get(size - 1)).encode());
+    }
+
+    private static Specification<Session> matching(SessionFilter filter) {
+        return Specification.allOf(
+                SessionSpecifications.from(filter.from()),
+                SessionSpecifications.to(filter.to()),
+                SessionSpecifications.teacher(filter.teacherId()));
+    }
+
+    /**
+     * Calls the consumer with each session matching the filter, in {@code (date, id)} order, and its
+     * participant ids. Rows come from a database cursor and are dropped once consumed, so memory use
+     * doesn't grow with the number of sessions.
+     */
+    @Transactional(readOnly = true)
+    public void forEach(SessionFilter filter, BiConsumer<SessionRow, List<Long>> consumer) {
+        try (Stream<SessionRow> rows = sessionRepository.streamAll(filter.from(), filter.to(), filter.teacherId())) {
+            SessionRow session = null;
+            List<Long> participantIds = new ArrayList<>();
+            for (Iterator<SessionRow> iterator = rows.iterator(); iterator.hasNext(); ) {
+                SessionRow row = iterator.next();
+                if (session != null && !session.id().equals(row.id())) {
+                    consumer.accept(session, participantIds);
+                    participantIds = new ArrayList<>();
+                }
+                session = row;
+                if (row.userId() != null) {
+                    participantIds.add(row.userId());
+                }
+            }
+            if (session != null) {
+                consumer.accept(session, participantIds);
+            }
+        }
+    }
+
+    /**
+     * Ids of the participants of each session, read from the join table without loading any user.
+     * Sessions without participants are absent from the map.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, List<Long>> findParticipantIds(Collection<Long> sessionIds) {
+        Map<Long, List<Long>> participantIds = new HashMap<>();
+        List<Long> ids = List.copyOf(sessionIds);
+        for (int from = 0; from < ids.size(); from += PARTICIPANT_QUERY_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + PARTICIPANT_QUERY_BATCH_SIZE, ids.size()));
+            for (Participation participation : participationRepository.findBySessionIdInOrderBySessionIdAscUserIdAsc(batch)) {
+                participantIds.computeIfAbsent(participation.getSessionId(), id -> new ArrayList<>())
+                        .add(participation.getUserId());
+            }
+        }
+        return participantIds;
+    }
+
+    @Transactional(readOnly = true)
     public Session getById(Long id) {
         return sessionRepository.findById(id)
                 .orElseThrow(NotFoundException::new);
     }
 
-    public Session update(Long id, Session session) {
-        if (!sessionRepository.existsById(id)) {
-            throw new NotFoundException();
+    /**
+     * Update the session in one statement, without reading it first, and replace its participants with
+     * {@link Session#getUsers()} (none when null). See {@link #replaceParticipants} for the writes.
+     * @param expectedVersion the version the session must be at, null for any
+     * @throws NotFoundException if the session doesnt exist
+     * @throws PreconditionFailedException if the session is at another version
+     */
+    @Transactional
+    public Session update(Long id, Session session, Long expectedVersion) {
+        LocalDateTime updatedAt = LocalDateTime.now();
+        if (sessionRepository.updateDetails(id, session.getName(), session.getDate(), session.getDescription(),
+                session.getTeacher(), updatedAt, expectedVersion) == 0) {
+            throw notFoundOrModified(id, expectedVersion);
         }
+        replaceParticipants(id, session.getUsers() != null
+                ? session.getUsers().stream().map(User::getId).toList()
+                : List.of());
         session.setId(id);
-        return sessionRepository.save(session);
+        session.setUpdatedAt(updatedAt);
+        sessionJsonCache.invalidateListing(id);
+        return session;
     }
 
-    public void participate(Long id, Long userId) {
-        Session session = sessionRepository.findById(id)
-                .orElseThrow(NotFoundException::new);
+    /**
+     * Update only the fields set in the patch, in one statement; the participants are read and written only
+     * when the patch replaces them.
+     * @param expectedVersion the version the session must be at, null for any
+     * @throws NotFoundException if the session doesnt exist
+     * @throws PreconditionFailedException if the session is at another version
+     */
+    @Transactional
+    public void patch(Long id, SessionPatch patch, Long expectedVersion) {
+        if (sessionRepository.patch(id, patch, LocalDateTime.now(), expectedVersion) == 0) {
+            throw notFoundOrModified(id, expectedVersion);
+        }
+        if (patch.users() != null) {
+            replaceParticipants(id, patch.users().stream().map(User::getId).toList());
+        }
+        sessionJsonCache.invalidateListing(id);
+    }
 
-        User user = userRepository.findById(userId)
-                .orElseThrow(NotFoundException::new);
+    // Only the failure path pays for telling the two cases apart
+    private RuntimeException notFoundOrModified(Long id, Long expectedVersion) {
+        if (expectedVersion != null && sessionRepository.existsById(id)) {
+            return new PreconditionFailedException();
+        }
+        return new NotFoundException();
+    }
 
-        boolean alreadyParticipate = session.getUsers().stream()
-                .anyMatch(u -> u.getId().equals(userId));
+    /**
+     * Reads the current participants, then writes only the difference: no write when they don't change,
+     * one DELETE for the users who leave and one INSERT for those who join.
+     */
+    private void replaceParticipants(Long id, List<Long> userIds) {
+        Set<Long> wanted = new HashSet<>(userIds);
+        Set<Long> current = new HashSet<>();
+        participationRepository.findBySessionIdInOrderBySessionIdAscUserIdAsc(List.of(id))
+                .forEach(participation -> current.add(participation.getUserId()));
+        if (!wanted.containsAll(current)) {
+            if (wanted.isEmpty()) {
+                participationRepository.leaveAll(id);
+            } else {
+                participationRepository.leaveAllBut(id, wanted);
+            }
+        }
+        Set<Long> joining = new HashSet<>(wanted);
+        joining.removeAll(current);
+        if (!joining.isEmpty()) {
+            participationRepository.participateAll(id, joining);
+        }
+    }
 
-        if (alreadyParticipate) {
+    /**
+     * @throws NotFoundException if the session or the user doesnt exist
+     * @throws BadRequestException if the user already participates
+     */
+    @Transactional
+    public void participate(Long id, Long userId) {
+        int inserted;
+        try {
+            inserted = participationRepository.participate(id, userId);
+        } catch (DataIntegrityViolationException e) {
             throw new BadRequestException();
         }
-
-        session.getUsers().add(user);
-        sessionRepository.save(session);
+        if (inserted == 0) {
+            throw new NotFoundException();
+        }
+        sessionJsonCache.invalidateSession(id);
     }
 
+    /**
+     * @throws NotFoundException if the session doesnt exist
+     * @throws BadRequestException if the user doesnt participate
+     */
+    @Transactional
     public void noLongerParticipate(Long id, Long userId) {
-        Session session = sessionRepository.findById(id)
-                .orElseThrow(NotFoundException::new);
-
-        boolean alreadyParticipate = session.getUsers().stream()
-                .anyMatch(u -> u.getId().equals(userId));
-
-        if (!alreadyParticipate) {
+        if (participationRepository.leave(id, userId) == 0) {
+            // Only the failure path pays for telling the two cases apart
+            if (!sessionRepository.existsById(id)) {
+                throw new NotFoundException();
+            }
             throw new BadRequestException();
         }
-
-        session.setUsers(
-                session.getUsers().stream()
-                        .filter(user -> !user.getId().equals(userId))
-                        .collect(Collectors.toList())
-        );
-
-        sessionRepository.save(session);
+        sessionJsonCache.invalidateSession(id);
     }
 }
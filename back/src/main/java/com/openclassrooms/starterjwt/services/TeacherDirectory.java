@@ -0,0 +1,107 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.mapper.TeacherMapper;
+import com.openclassrooms.starterjwt.models.Teacher;
+
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the teacher table, with the JSON served by the teacher endpoints already
+ * serialized and tagged.
+ * <p>
+ * Shared by every request until the next refresh. {@link Teacher} is a mutable entity, so the snapshot
+ * keeps its own copies and hands out a new copy on every read; the JSON bytes must not be modified.
+ */
+public final class TeacherDirectory {
+    private final List<Teacher> teachers;
+
+    private final Map<Long, Entry> byId;
+
+    private final Json list;
+
+    private TeacherDirectory(List<Teacher> teachers, Map<Long, Entry> byId, Json list) {
+        this.teachers = teachers;
+        this.byId = byId;
+        this.list = list;
+    }
+
+    static TeacherDirectory of(List<Teacher> teachers, TeacherMapper teacherMapper, ObjectMapper objectMapper) {
+        try {
+            Map<Long, Entry> byId = new HashMap<>();
+            for (Teacher teacher : teachers) {
+                byte[] json = objectMapper.writeValueAsBytes(teacherMapper.toDto(teacher));
+                byId.put(teacher.getId(), new Entry(copy(teacher), Json.of(json)));
+            }
+            byte[] list = objectMapper.writeValueAsBytes(teacherMapper.toDto(teachers));
+            return new TeacherDirectory(teachers.stream().map(TeacherDirectory::copy).toList(), Map.copyOf(byId),
+                    Json.of(list));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return copies, free to modify
+     */
+    public List<Teacher> teachers() {
+        return teachers.stream().map(TeacherDirectory::copy).toList();
+    }
+
+    public int size() {
+        return teachers.size();
+    }
+
+    /**
+     * @return null if the teacher isn't in the snapshot
+     */
+    public Entry find(Long id) {
+        return id == null ? null : byId.get(id);
+    }
+
+    public Json list() {
+        return list;
+    }
+
+    /**
+     * Changes whenever the content of the teacher table does.
+     */
+    public String version() {
+        return list.etag();
+    }
+
+    public record Entry(Teacher teacher, Json json) {
+        /**
+         * @return a copy, free to modify
+         */
+        @Override
+        public Teacher teacher() {
+            return copy(teacher);
+        }
+    }
+
+    private static Teacher copy(Teacher teacher) {
+        return teacher.toBuilder().build();
+    }
+
+    /**
+     * @param etag strong ETag of the bytes, quoted
+     */
+    public record Json(byte[] bytes, String etag) {
+        static Json of(byte[] bytes) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+                return new Json(bytes, '"' + HexFormat.of().formatHex(digest, 0, 16) + '"');
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        }
+    }
+}
@@ -1,26 +1,109 @@
 package com.openclassrooms.starterjwt.services;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.mapper.TeacherMapper;
 import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 
+/**
+ * Teachers, read from an in-memory {@link TeacherDirectory} snapshot instead of the database.
+ * <p>
+ * The teacher table changes a few times a year. The snapshot is loaded on first use, reloaded every
+ * {@code oc.app.teacherRefreshMs} and swapped in one write, so readers see either the old or the new
+ * table, never a mix. A lookup of an id missing from the snapshot checks the database and reloads it if
+ * the teacher was added since.
+ * <p>
+ * No method opens a transaction: most calls never reach the database, and a read-only transaction would
+ * still check a connection out of the pool. The queries of a reload run in the read-only transactions of
+ * the repository.
+ */
 @Service
+@Slf4j
 public class TeacherService {
     private final TeacherRepository teacherRepository;
 
-    public TeacherService(TeacherRepository teacherRepository) {
+    private final TeacherMapper teacherMapper;
+
+    private final ObjectMapper objectMapper;
+
+    private volatile TeacherDirectory directory;
+
+    public TeacherService(TeacherRepository teacherRepository, TeacherMapper teacherMapper, ObjectMapper objectMapper) {
         this.teacherRepository = teacherRepository;
+        this.teacherMapper = teacherMapper;
+        this.objectMapper = objectMapper;
     }
 
     public List<Teacher> findAll() {
-        return this.teacherRepository.findAll();
+        return directory().teachers();
     }
 
     public Teacher findById(Long id) {
-        return teacherRepository.findById(id)
-                .orElseThrow(NotFoundException::new);
+        return find(id).teacher();
+    }
+
+    /**
+     * JSON of the list of all teachers, with its ETag.
+     */
+    public TeacherDirectory.Json findAllJson() {
+        return directory().list();
+    }
+
+    /**
+     * JSON of the teacher, with its ETag.
+     * @throws NotFoundException if the teacher doesnt exist
+     */
+    public TeacherDirectory.Json findJsonById(Long id) {
+        return find(id).json();
+    }
+
+    private TeacherDirectory.Entry find(Long id) {
+        TeacherDirectory.Entry entry = directory().find(id);
+        if (entry != null) {
+            return entry;
+        }
+
+        if (id == null) {
+            throw new NotFoundException();
+        }
+        if (!teacherRepository.existsById(id)) {
+            throw new NotFoundException();
+        }
+        entry = reload().find(id);
+        if (entry == null) {
+            throw new NotFoundException();
+        }
+        return entry;
+    }
+
+    private TeacherDirectory directory() {
+        TeacherDirectory current = directory;
+        return current != null ? current : reload();
+    }
+
+    /**
+     * Reload the snapshot from the database, e.g. after the teacher table was changed.
+     */
+    @Scheduled(fixedDelayString = "${oc.app.teacherRefreshMs:300000}",
+            initialDelayString = "${oc.app.teacherRefreshMs:300000}")
+    public void refresh() {
+        reload();
+    }
+
+    private synchronized TeacherDirectory reload() {
+        TeacherDirectory previous = directory;
+        TeacherDirectory loaded = TeacherDirectory.of(teacherRepository.findAll(), teacherMapper, objectMapper);
+        if (previous != null && previous.version().equals(loaded.version())) {
+            return previous;
+        }
+        directory = loaded;
+        log.debug("Teacher directory {} loaded with {} teachers", loaded.version(), loaded.size());
+        return loaded;
     }
 }
@@ -2,29 +2,104 @@ package com.openclassrooms.starterjwt.services;
 
 import com.openclassrooms.starterjwt.exception.NotFoundException;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.ParticipationRepository;
 import com.openclassrooms.starterjwt.repository.UserRepository;
-import org.springframework.security.core.userdetails.UserDetails;
+import com.openclassrooms.starterjwt.security.jwt.TokenRevocationList;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 @Service
 public class UserService {
     private final UserRepository userRepository;
 
-    public UserService(UserRepository userRepository) {
+    private final TokenRevocationList tokenRevocationList;
+
+    private final RegisteredEmails registeredEmails;
+
+    private final ParticipationRepository participationRepository;
+
+    private final SessionJsonCache sessionJsonCache;
+
+    public UserService(UserRepository userRepository, TokenRevocationList tokenRevocationList,
+                       RegisteredEmails registeredEmails, ParticipationRepository participationRepository,
+                       SessionJsonCache sessionJsonCache) {
         this.userRepository = userRepository;
+        this.tokenRevocationList = tokenRevocationList;
+        this.registeredEmails = registeredEmails;
+        this.participationRepository = participationRepository;
+        this.sessionJsonCache = sessionJsonCache;
     }
 
+    /**
+     * @throws NotFoundException if the user doesnt exist
+     */
+    @Transactional
     public void delete(Long id) {
-        if (!userRepository.existsById(id)) {
+        // Read before the participations go with the user, to drop the cached sessions listing them
+        List<Long> sessionIds = participationRepository.findSessionIdsByUserId(id);
+        if (userRepository.deleteUser(id) == 0) {
+            throw new NotFoundException();
+        }
+        sessionIds.forEach(sessionJsonCache::invalidateSession);
+        // Participations and refresh tokens go with the user; access tokens already issued are revoked until they expire
+        tokenRevocationList.revokeUser(id);
+        registeredEmails.deleted();
+    }
+
+    /**
+     * Grants or withdraws the admin role. The tokens already issued are refused once every instance
+     * has reloaded the token versions.
+     * @throws NotFoundException if the user doesnt exist
+     */
+    @Transactional
+    public void setAdmin(Long id, boolean admin) {
+        if (userRepository.updateAdmin(id, admin) == 0) {
             throw new NotFoundException();
         }
-        userRepository.deleteById(id);
     }
 
+    /**
+     * Replaces the password. The tokens already issued are refused once every instance has reloaded
+     * the token versions.
+     * @param encodedPassword already encoded
+     * @throws NotFoundException if the user doesnt exist
+     */
+    @Transactional
+    public void changePassword(Long id, String encodedPassword) {
+        if (userRepository.changePassword(id, encodedPassword) == 0) {
+            throw new NotFoundException();
+        }
+    }
+
+    @Transactional(readOnly = true)
     public User findById(Long id) {
         return userRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException());
     }
 
-
+    /**
+     * Load the given users in a single query, whatever their number.
+     * <p>
+     * Reference proxies wouldn't save the query here: users are compared by id, so adding a proxy
+     * to a {@code Set} initializes it, one SELECT per user.
+     * @throws NotFoundException if one of the users doesnt exist
+     */
+    @Transactional(readOnly = true)
+    public Set<User> findAllById(Collection<Long> ids) {
+        Set<Long> distinctIds = new HashSet<>(ids);
+        if (distinctIds.isEmpty()) {
+            return new HashSet<>();
+        }
+        Set<User> users = new HashSet<>(userRepository.findAllById(distinctIds));
+        if (users.size() < distinctIds.size()) {
+            users.forEach(user -> distinctIds.remove(user.getId()));
+            throw new NotFoundException("Users not found: " + distinctIds);
+        }
+        return users;
+    }
 }
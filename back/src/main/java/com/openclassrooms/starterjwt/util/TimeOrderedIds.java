@@ -0,0 +1,66 @@
+package com.openclassrooms.starterjwt.util;
+
+import java.time.Instant;
+import java.util.function.LongSupplier;
+
+/**
+ * Time-ordered ids generated without coordination, in the TSID/Snowflake style: milliseconds since
+ * {@link #EPOCH}, then the node, then a sequence within the millisecond.
+ * <p>
+ * The layout fits in 53 bits rather than 63, so that the ids stay exact as JavaScript numbers in the front:
+ * 41 bits of time (until 2094), 5 bits of node (32 instances) and 7 bits of sequence (128 ids per millisecond
+ * and node). Past 128 ids, or when the clock goes back, the ids borrow the next milliseconds so that they keep
+ * increasing.
+ */
+public final class TimeOrderedIds {
+    public static final Instant EPOCH = Instant.parse("2025-01-01T00:00:00Z");
+
+    public static final int NODE_BITS = 5;
+
+    public static final int SEQUENCE_BITS = 7;
+
+    public static final int MAX_NODE = (1 << NODE_BITS) - 1;
+
+    private static final int TIMESTAMP_SHIFT = NODE_BITS + SEQUENCE_BITS;
+
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+
+    private final long node;
+    private final LongSupplier clock;
+    private long lastMillis = -1;
+    private long sequence;
+
+    public TimeOrderedIds(int node) {
+        this(node, System::currentTimeMillis);
+    }
+
+    public TimeOrderedIds(int node, LongSupplier clock) {
+        if (node < 0 || node > MAX_NODE) {
+            throw new IllegalArgumentException("Node must be between 0 and " + MAX_NODE);
+        }
+        this.node = node;
+        this.clock = clock;
+    }
+
+    public synchronized long next() {
+        long millis = clock.getAsLong() - EPOCH.toEpochMilli();
+        if (millis > lastMillis) {
+            lastMillis = millis;
+            sequence = 0;
+        } else if (sequence < MAX_SEQUENCE) {
+            sequence++;
+        } else {
+            lastMillis++;
+            sequence = 0;
+        }
+        return lastMillis << TIMESTAMP_SHIFT | node << SEQUENCE_BITS | sequence;
+    }
+
+    public static Instant timestampOf(long id) {
+        return EPOCH.plusMillis(id >>> TIMESTAMP_SHIFT);
+    }
+
+    public static int nodeOf(long id) {
+        return (int) (id >>> SEQUENCE_BITS & MAX_NODE);
+    }
+}
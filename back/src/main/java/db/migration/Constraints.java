@@ -0,0 +1,45 @@
+package db.migration;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lookups of the constraints the migrations replace, by their columns rather than their names: databases
+ * baselined from the schema generated by Hibernate have hashed names.
+ */
+final class Constraints {
+    private static final String UNIQUE_ON_COLUMN = "SELECT tc.CONSTRAINT_NAME "
+            + "FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS tc "
+            + "JOIN INFORMATION_SCHEMA.KEY_COLUMN_USAGE k ON k.CONSTRAINT_NAME = tc.CONSTRAINT_NAME "
+            + "AND k.TABLE_SCHEMA = tc.TABLE_SCHEMA AND k.TABLE_NAME = tc.TABLE_NAME "
+            + "WHERE tc.TABLE_SCHEMA = ? AND LOWER(tc.TABLE_NAME) = ? AND tc.CONSTRAINT_TYPE = 'UNIQUE' "
+            + "GROUP BY tc.CONSTRAINT_NAME "
+            + "HAVING COUNT(*) = 1 AND LOWER(MAX(k.COLUMN_NAME)) = ?";
+
+    private Constraints() {
+    }
+
+    /**
+     * Names of the unique constraints on the given column alone.
+     */
+    static List<String> uniqueOn(Connection connection, String table, String column) throws SQLException {
+        // The database is a catalog for MySQL, a schema for H2
+        String schema = connection.getSchema() != null ? connection.getSchema() : connection.getCatalog();
+        List<String> names = new ArrayList<>();
+        try (PreparedStatement query = connection.prepareStatement(UNIQUE_ON_COLUMN)) {
+            query.setString(1, schema);
+            query.setString(2, table);
+            query.setString(3, column);
+            try (ResultSet constraints = query.executeQuery()) {
+                while (constraints.next()) {
+                    names.add(constraints.getString(1));
+                }
+            }
+        }
+        return names;
+    }
+}
@@ -0,0 +1,25 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Drops the unique constraint on {@code sessions.teacher_id} left by the former {@code @OneToOne} mapping of
+ * the teacher, which allowed a single session per teacher. The foreign key keeps the
+ * {@code idx_sessions_teacher_date_id} index of V4.
+ */
+public class V5__Allow_several_sessions_per_teacher extends BaseJavaMigration {
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            for (String constraint : Constraints.uniqueOn(connection, "sessions", "teacher_id")) {
+                statement.execute("ALTER TABLE sessions DROP CONSTRAINT " + constraint);
+            }
+        }
+    }
+}
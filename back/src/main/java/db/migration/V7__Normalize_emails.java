@@ -0,0 +1,31 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Adds {@code users.email_normalized}, filled from the existing emails, and moves the uniqueness of the emails
+ * onto it. Fails on the new unique constraint if two accounts only differ by the case of their email: merge
+ * them first.
+ */
+public class V7__Normalize_emails extends BaseJavaMigration {
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE users ADD COLUMN email_normalized VARCHAR(50)");
+            statement.execute("UPDATE users SET email_normalized = LOWER(TRIM(email))");
+            statement.execute("ALTER TABLE users MODIFY email_normalized VARCHAR(50) NOT NULL");
+            statement.execute("ALTER TABLE users "
+                    + "ADD CONSTRAINT uk_users_email_normalized UNIQUE (email_normalized)");
+            // Lookups go through the normalized email, the unique index on the email as typed is no longer used
+            for (String constraint : Constraints.uniqueOn(connection, "users", "email")) {
+                statement.execute("ALTER TABLE users DROP CONSTRAINT " + constraint);
+            }
+        }
+    }
+}
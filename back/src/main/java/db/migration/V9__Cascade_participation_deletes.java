@@ -0,0 +1,55 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Deletes the participations of a session or a user along with it, in the same statement, instead of
+ * requiring them to be deleted first.
+ * <p>
+ * In Java rather than SQL because the foreign keys to replace don't have the same name everywhere: the
+ * databases baselined from the schema generated by Hibernate have hashed names, found here in the JDBC metadata.
+ */
+public class V9__Cascade_participation_deletes extends BaseJavaMigration {
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            for (String foreignKey : foreignKeys(connection, "session_id")) {
+                statement.execute("ALTER TABLE participate DROP FOREIGN KEY " + foreignKey);
+            }
+            for (String foreignKey : foreignKeys(connection, "user_id")) {
+                statement.execute("ALTER TABLE participate DROP FOREIGN KEY " + foreignKey);
+            }
+            statement.execute("ALTER TABLE participate ADD CONSTRAINT fk_participate_session "
+                    + "FOREIGN KEY (session_id) REFERENCES sessions (id) ON DELETE CASCADE");
+            statement.execute("ALTER TABLE participate ADD CONSTRAINT fk_participate_user "
+                    + "FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE");
+        }
+    }
+
+    private static Set<String> foreignKeys(Connection connection, String column) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        Set<String> names = new LinkedHashSet<>();
+        // Stored in lower case by MySQL, in upper case by H2
+        for (String table : List.of("participate", "PARTICIPATE")) {
+            try (ResultSet keys = metaData.getImportedKeys(connection.getCatalog(), connection.getSchema(), table)) {
+                while (keys.next()) {
+                    if (column.equalsIgnoreCase(keys.getString("FKCOLUMN_NAME"))) {
+                        names.add(keys.getString("FK_NAME"));
+                    }
+                }
+            }
+        }
+        return names;
+    }
+}
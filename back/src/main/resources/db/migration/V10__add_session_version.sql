@@ -0,0 +1,2 @@
+-- Optimistic concurrency on sessions: incremented by every update, compared with the If-Match header
+ALTER TABLE sessions ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,47 @@
+-- Schema as generated by Hibernate (ddl-auto: update) before the migrations: databases created that way are
+-- baselined at this version instead of running it (spring.flyway.baseline-on-migrate). Their constraints have
+-- the names generated by Hibernate, the later migrations look them up instead of naming them.
+CREATE TABLE teachers (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    first_name VARCHAR(20) NOT NULL,
+    last_name VARCHAR(20) NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE users (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    admin BIT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    email VARCHAR(50) NOT NULL,
+    first_name VARCHAR(20) NOT NULL,
+    last_name VARCHAR(20) NOT NULL,
+    password VARCHAR(120) NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE sessions (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    date DATETIME(6) NOT NULL,
+    description VARCHAR(2500) NOT NULL,
+    name VARCHAR(50) NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    teacher_id BIGINT,
+    PRIMARY KEY (id)
+);
+
+-- A bag of users: no primary key
+CREATE TABLE participate (
+    session_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL
+);
+
+-- Unique because the teacher was mapped @OneToOne
+ALTER TABLE sessions ADD CONSTRAINT uk_sessions_teacher UNIQUE (teacher_id);
+ALTER TABLE users ADD CONSTRAINT uk_users_email UNIQUE (email);
+ALTER TABLE participate ADD CONSTRAINT fk_participate_user FOREIGN KEY (user_id) REFERENCES users (id);
+ALTER TABLE participate ADD CONSTRAINT fk_participate_session FOREIGN KEY (session_id) REFERENCES sessions (id);
+ALTER TABLE sessions ADD CONSTRAINT fk_sessions_teacher FOREIGN KEY (teacher_id) REFERENCES teachers (id);
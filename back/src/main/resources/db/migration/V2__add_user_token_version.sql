@@ -0,0 +1,2 @@
+-- Incremented to invalidate every token issued so far for the user, carried in the tokens as a claim
+ALTER TABLE users ADD COLUMN token_version INT NOT NULL DEFAULT 0;
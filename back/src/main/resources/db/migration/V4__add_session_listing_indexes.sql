@@ -0,0 +1,3 @@
+-- Session listing: the date range alone, or a teacher then the date range, in (date, id) keyset order
+CREATE INDEX idx_sessions_date_id ON sessions (date, id);
+CREATE INDEX idx_sessions_teacher_date_id ON sessions (teacher_id, date, id);
@@ -0,0 +1,6 @@
+-- The participants are a set: duplicates of the former bag are dropped before the primary key is added
+CREATE TABLE participate_distinct AS SELECT DISTINCT session_id, user_id FROM participate;
+DELETE FROM participate;
+INSERT INTO participate (session_id, user_id) SELECT session_id, user_id FROM participate_distinct;
+DROP TABLE participate_distinct;
+ALTER TABLE participate ADD PRIMARY KEY (session_id, user_id);
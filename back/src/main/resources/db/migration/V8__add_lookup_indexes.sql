@@ -0,0 +1,6 @@
+-- Participations of a user, from the user side of the (session_id, user_id) primary key: the foreign key
+-- checks when a user is deleted, and the sessions a user joined
+CREATE INDEX idx_participate_user_session ON participate (user_id, session_id);
+
+-- Purge of the expired revocations, a range on expires_at
+CREATE INDEX idx_revoked_tokens_expires_at ON revoked_tokens (expires_at);
@@ -1 +1 @@
-INSERT INTO users(first_name, last_name, admin, email, password) VALUES ('Admin', 'Admin', true, 'yoga@studio.com', '$2a$10$.Hsa/ZjUVaHqi0tp9xieMeewrnZxrZ5pQRzddUXE/WjDu2ZThe6Iq');
\ No newline at end of file
+INSERT INTO users(first_name, last_name, admin, email, email_normalized, password) VALUES ('Admin', 'Admin', true, 'yoga@studio.com', 'yoga@studio.com', '$2a$10$.Hsa/ZjUVaHqi0tp9xieMeewrnZxrZ5pQRzddUXE/WjDu2ZThe6Iq');
\ No newline at end of file
@@ -0,0 +1,113 @@
+package com.openclassrooms.starterjwt;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+/**
+ * Starts the application on a database created by Hibernate before the migrations, as production ones were:
+ * Flyway baselines it at version 1 and only runs the later migrations.
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+    "oc.app.jwtSecret=testSecretKeyForIntegrationTestsOnlyMustBeLongEnoughForHS512AlgorithmAbCdEfGhIjKlMnOpQrStUvWxYz"
+})
+@DisplayName("Integration Tests - Migrations of a database created by Hibernate")
+class BaselineMigrationIntegrationTest {
+    private static final String URL = "jdbc:h2:mem:baseline;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE";
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @DynamicPropertySource
+    static void baselineDatabase(DynamicPropertyRegistry registry) throws SQLException {
+        // Created before the context starts, so that Flyway finds it at startup
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("RUNSCRIPT FROM 'classpath:sql/hibernate_schema.sql'");
+        }
+        registry.add("spring.datasource.url", () -> URL);
+    }
+
+    @Test
+    @DisplayName("Should baseline the existing schema, then apply every later migration")
+    void testMigrations_ShouldStartAfterBaseline() {
+        // WHEN
+        MigrationInfo[] applied = flyway.info().applied();
+
+        // THEN
+        assertThat(applied[0].getType().isBaseline()).isTrue();
+        assertThat(applied[0].getVersion().getVersion()).isEqualTo("1");
+        assertThat(applied).extracting(info -> info.getVersion().getVersion())
+                .containsExactly("1", "2", "3", "4", "5", "6", "7", "8", "9", "10");
+        assertThat(flyway.info().pending()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should end up with the schema the entities expect, as checked by ddl-auto: validate")
+    void testSchema_ShouldMatchEntities() {
+        assertThatCode(() -> entityManagerFactory.unwrap(SessionFactory.class)
+                .getSchemaManager().validateMappedObjects())
+                .doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("Should keep the existing rows, with their emails normalized and duplicate participations dropped")
+    void testData_ShouldBeMigrated() {
+        // WHEN
+        List<String> emails = jdbcTemplate.queryForList(
+                "SELECT email_normalized FROM users ORDER BY id", String.class);
+        Integer participations = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM participate", Integer.class);
+
+        // THEN
+        assertThat(emails).containsExactly("yoga@studio.com", "user@studio.com");
+        assertThat(participations).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should replace the constraints generated by Hibernate and add the listing indexes")
+    void testConstraints_ShouldBeReplaced() {
+        // WHEN
+        List<String> indexes = jdbcTemplate.queryForList(
+                "SELECT INDEX_NAME FROM INFORMATION_SCHEMA.INDEXES WHERE TABLE_SCHEMA = 'PUBLIC'", String.class);
+        List<String> constraints = jdbcTemplate.queryForList(
+                "SELECT CONSTRAINT_NAME FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS WHERE TABLE_SCHEMA = 'PUBLIC'",
+                String.class);
+
+        // THEN - Une seconde session pour le même professeur, puis sa suppression avec ses participations
+        assertThat(indexes).contains("IDX_SESSIONS_DATE_ID", "IDX_SESSIONS_TEACHER_DATE_ID");
+        assertThat(constraints).contains("UK_USERS_EMAIL_NORMALIZED", "FK_PARTICIPATE_SESSION", "FK_PARTICIPATE_USER")
+                .doesNotContain("UKB5TQ0RM9SMMM0UBSRD1PWQ0SG", "UK6DOTKOTT2KJSP8VW4D0M25FB7",
+                        "FK8E7TMBYD4FFGMKXQTM4P5LCKE", "FKJ9R1K6IJPBHCKNR6LPLWPYPX0");
+        jdbcTemplate.update("INSERT INTO sessions (id, name, date, description, teacher_id) "
+                + "VALUES (2, 'Yoga', '2026-01-06 10:00:00', 'Evening yoga', 1)");
+        jdbcTemplate.update("INSERT INTO participate (session_id, user_id) VALUES (2, 1)");
+        jdbcTemplate.update("DELETE FROM sessions WHERE id = 2");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM participate WHERE session_id = 2", Integer.class)).isZero();
+    }
+}
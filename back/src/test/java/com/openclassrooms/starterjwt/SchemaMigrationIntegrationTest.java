@@ -0,0 +1,129 @@
+package com.openclassrooms.starterjwt;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+@SpringBootTest
+@TestPropertySource(properties = {
+    "oc.app.jwtSecret=testSecretKeyForIntegrationTestsOnlyMustBeLongEnoughForHS512AlgorithmAbCdEfGhIjKlMnOpQrStUvWxYz"
+})
+@DisplayName("Integration Tests - Schema migrations")
+class SchemaMigrationIntegrationTest {
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @DisplayName("Should apply every migration")
+    void testMigrations_ShouldAllBeApplied() {
+        // WHEN
+        MigrationInfo[] applied = flyway.info().applied();
+
+        // THEN
+        assertThat(flyway.info().pending()).isEmpty();
+        assertThat(applied).extracting(info -> info.getVersion().getVersion()).containsExactly("1", "2", "3", "4", "5", "6", "7", "8", "9", "10");
+        assertThat(applied).allMatch(info -> info.getState().isApplied() && !info.getState().isFailed());
+    }
+
+    @Test
+    @DisplayName("Should start on an up-to-date schema without running a migration")
+    void testMigrate_OnUpToDateSchema_ShouldBeFast() {
+        // WHEN - Ce que fait chaque démarrage, une fois la base migrée
+        long start = System.nanoTime();
+        MigrateResult result = flyway.migrate();
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        // THEN
+        assertThat(result.migrationsExecuted).isZero();
+        assertThat(elapsed).isLessThan(Duration.ofSeconds(2));
+    }
+
+    @Test
+    @DisplayName("Should match the entities, as checked by ddl-auto: validate")
+    void testSchema_ShouldMatchEntities() {
+        assertThatCode(() -> entityManagerFactory.unwrap(SessionFactory.class)
+                .getSchemaManager().validateMappedObjects())
+                .doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("Should create the listing and participation indexes")
+    void testIndexes_ShouldExist() {
+        // WHEN
+        List<String> indexes = jdbcTemplate.queryForList(
+                "SELECT INDEX_NAME FROM INFORMATION_SCHEMA.INDEXES WHERE TABLE_SCHEMA = 'PUBLIC'", String.class);
+
+        // THEN
+        assertThat(indexes).contains(
+                "IDX_SESSIONS_DATE_ID",
+                "IDX_SESSIONS_TEACHER_DATE_ID",
+                "IDX_PARTICIPATE_USER_SESSION",
+                "IDX_REVOKED_TOKENS_EXPIRES_AT");
+    }
+
+    @Test
+    @DisplayName("Should serve the session listing pages from the (date, id) indexes, already sorted")
+    void testSessionListingPlan_ShouldUseIndexes() {
+        // WHEN - Page par intervalle de dates, puis page suivante après le curseur (date, id)
+        String byDate = explain("SELECT id FROM sessions WHERE date >= DATE '2026-01-01' AND date < DATE '2026-02-01' "
+                + "ORDER BY date, id LIMIT 20");
+        String afterCursor = explain("SELECT id FROM sessions "
+                + "WHERE date > DATE '2026-01-01' OR (date = DATE '2026-01-01' AND id > 5) ORDER BY date, id LIMIT 20");
+        String byTeacher = explain("SELECT id FROM sessions WHERE teacher_id = 1 AND date >= DATE '2026-01-01' "
+                + "ORDER BY date, id LIMIT 20");
+
+        // THEN
+        assertThat(byDate).contains("IDX_SESSIONS_DATE_ID").contains("index sorted");
+        assertThat(afterCursor).contains("IDX_SESSIONS_DATE_ID").contains("index sorted");
+        assertThat(byTeacher).contains("IDX_SESSIONS_TEACHER_DATE_ID: TEACHER_ID = ");
+    }
+
+    @Test
+    @DisplayName("Should look participations up by session and by user through an index")
+    void testParticipationPlan_ShouldUseIndexes() {
+        // WHEN - Les participants joints à la liste des sessions, puis les sessions d'un utilisateur
+        String bySession = explain("SELECT s.id, p.user_id FROM sessions s "
+                + "LEFT JOIN participate p ON p.session_id = s.id "
+                + "WHERE s.date >= DATE '2026-01-01' ORDER BY s.date, s.id, p.user_id");
+        String byUser = explain("SELECT session_id FROM participate WHERE user_id = 1");
+
+        // THEN
+        assertThat(bySession).contains("IDX_SESSIONS_DATE_ID").containsPattern("PRIMARY_KEY_\\w+: SESSION_ID = S.ID");
+        assertThat(byUser).contains("IDX_PARTICIPATE_USER_SESSION: USER_ID = ");
+    }
+
+    @Test
+    @DisplayName("Should purge the expired revocations through an index")
+    void testRevokedTokenPurgePlan_ShouldUseIndex() {
+        // WHEN
+        String purge = explain("DELETE FROM revoked_tokens WHERE expires_at < TIMESTAMP '2026-01-01 00:00:00'");
+
+        // THEN
+        assertThat(purge).contains("IDX_REVOKED_TOKENS_EXPIRES_AT: EXPIRES_AT < ");
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+    }
+}
@@ -0,0 +1,44 @@
+package com.openclassrooms.starterjwt;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Records the SQL statements Hibernate prepares on the current thread, so that tests can count the
+ * round trips of a request. Registered through {@code hibernate.session_factory.statement_inspector}.
+ */
+public class StatementRecorder implements StatementInspector {
+    private static final ThreadLocal<List<String>> STATEMENTS = ThreadLocal.withInitial(ArrayList::new);
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.get().add(sql);
+        return sql;
+    }
+
+    public static void clear() {
+        STATEMENTS.get().clear();
+    }
+
+    /**
+     * Every statement recorded since the last {@link #clear()}.
+     */
+    public static List<String> statements() {
+        return List.copyOf(STATEMENTS.get());
+    }
+
+    /**
+     * The inserts, updates and deletes recorded since the last {@link #clear()}.
+     */
+    public static List<String> writes() {
+        return STATEMENTS.get().stream()
+                .filter(sql -> {
+                    String verb = sql.stripLeading().toLowerCase(Locale.ROOT);
+                    return verb.startsWith("insert") || verb.startsWith("update") || verb.startsWith("delete");
+                })
+                .toList();
+    }
+}
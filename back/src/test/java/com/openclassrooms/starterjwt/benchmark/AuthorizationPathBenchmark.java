@@ -0,0 +1,87 @@
+package com.openclassrooms.starterjwt.benchmark;
+
+import com.openclassrooms.starterjwt.repository.RevokedTokenRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.jwt.AuthTokenFilter;
+import com.openclassrooms.starterjwt.security.jwt.TokenRevocationList;
+import com.openclassrooms.starterjwt.security.jwt.TokenVersionGuard;
+import com.openclassrooms.starterjwt.security.jwt.VerifiedTokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authorization.AuthorityAuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of authenticating a cached admin token in AuthTokenFilter, then checking the
+ * {@code hasRole('ADMIN')} rule of the session endpoints. Run with the gc profiler (on by default in
+ * the benchmark profile) to read the allocations per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthorizationPathBenchmark {
+    private final AuthorityAuthorizationManager<Object> adminOnly = AuthorityAuthorizationManager.hasRole("ADMIN");
+    private final FilterChain chain = (request, response) -> { };
+
+    private AuthTokenFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private Authentication authentication;
+
+    @Setup
+    public void setUp() throws Exception {
+        var jwtUtils = BenchmarkSupport.jwtUtils();
+        var revocationList = new TokenRevocationList(Mockito.mock(RevokedTokenRepository.class), 900000, 10000);
+        ReflectionTestUtils.invokeMethod(revocationList, "load");
+
+        filter = new AuthTokenFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtils", jwtUtils);
+        ReflectionTestUtils.setField(filter, "tokenVersionGuard", new TokenVersionGuard(Mockito.mock(UserRepository.class)));
+        ReflectionTestUtils.setField(filter, "verifiedTokenCache",
+                new VerifiedTokenCache(jwtUtils, new SimpleMeterRegistry(), true, 10000));
+        ReflectionTestUtils.setField(filter, "tokenRevocationList", revocationList);
+        ReflectionTestUtils.setField(filter, "statelessPrincipal", true);
+        ReflectionTestUtils.setField(filter, "tokenVersionCheck", true);
+
+        request = new MockHttpServletRequest("POST", "/api/session");
+        request.addHeader("Authorization", "Bearer " + jwtUtils.generateJwtToken(BenchmarkSupport.authentication()));
+        response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, chain);
+        authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public boolean filterThenAuthorize() throws Exception {
+        filter.doFilter(request, response, chain);
+        boolean granted = adminOnly.authorize(SecurityContextHolder.getContext()::getAuthentication, request).isGranted();
+        SecurityContextHolder.clearContext();
+        return granted;
+    }
+
+    @Benchmark
+    public boolean authorize() {
+        return adminOnly.authorize(() -> authentication, request).isGranted();
+    }
+}
@@ -0,0 +1,75 @@
+package com.openclassrooms.starterjwt.benchmark;
+
+import com.openclassrooms.starterjwt.security.jwt.JwtAlgorithm;
+import com.openclassrooms.starterjwt.security.jwt.JwtKeyProperties;
+import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Encoders;
+import io.jsonwebtoken.security.Jwks;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.KeyPair;
+import java.util.List;
+
+/**
+ * Builds the beans used by the benchmarks without starting a Spring context.
+ */
+final class BenchmarkSupport {
+    static final String JWT_SECRET =
+            "testSecretKeyForIntegrationTestsOnlyMustBeLongEnoughForHS512AlgorithmAbCdEfGhIjKlMnOpQrStUvWxYz";
+
+    private BenchmarkSupport() {
+    }
+
+    static JwtUtils jwtUtils() {
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", JWT_SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 86400000);
+        ReflectionTestUtils.invokeMethod(jwtUtils, "init");
+        return jwtUtils;
+    }
+
+    /**
+     * A JwtUtils signing with a freshly generated key of the given algorithm.
+     */
+    static JwtUtils jwtUtils(JwtAlgorithm algorithm) {
+        JwtKeyProperties.JwtKey key = new JwtKeyProperties.JwtKey();
+        key.setKid("bench");
+        key.setAlgorithm(algorithm.id());
+        switch (algorithm) {
+            case HS256 -> key.setSecret(Encoders.BASE64.encode(Jwts.SIG.HS256.key().build().getEncoded()));
+            case HS512 -> key.setSecret(Encoders.BASE64.encode(Jwts.SIG.HS512.key().build().getEncoded()));
+            default -> {
+                KeyPair keyPair = algorithm == JwtAlgorithm.ES256
+                        ? Jwts.SIG.ES256.keyPair().build()
+                        : Jwks.CRV.Ed25519.keyPair().build();
+                key.setPrivateKey(Encoders.BASE64.encode(keyPair.getPrivate().getEncoded()));
+                key.setPublicKey(Encoders.BASE64.encode(keyPair.getPublic().getEncoded()));
+            }
+        }
+        JwtKeyProperties properties = new JwtKeyProperties();
+        properties.setJwtKeys(List.of(key));
+
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 86400000);
+        ReflectionTestUtils.setField(jwtUtils, "jwtSigningKeyId", "bench");
+        ReflectionTestUtils.setField(jwtUtils, "jwtKeyProperties", properties);
+        ReflectionTestUtils.invokeMethod(jwtUtils, "init");
+        return jwtUtils;
+    }
+
+    static Authentication authentication() {
+        UserDetailsImpl principal = UserDetailsImpl.builder()
+                .id(1L)
+                .username("yoga@studio.com")
+                .firstName("Admin")
+                .lastName("Admin")
+                .admin(true)
+                .tokenVersion(0)
+                .build();
+        return new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+    }
+}
@@ -0,0 +1,196 @@
+package com.openclassrooms.starterjwt.benchmark;
+
+import com.openclassrooms.starterjwt.util.TimeOrderedIds;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Rows per second when creating sessions and users in bulk, on the schema of the migrations: one insert per
+ * row reading back its {@code IDENTITY} key, as Hibernate did before, against ids generated up front and
+ * inserts sent in batches of 50, as it does with {@code @TimeOrderedId} and {@code hibernate.jdbc.batch_size}.
+ * <p>
+ * Runs against H2 in MySQL mode, where a statement costs no network round trip: {@code roundTripMicros} adds
+ * one after each executed statement, as a database on another host would. The {@code jdbcUrl}, {@code user} and
+ * {@code password} params point it at a real database instead, on an empty schema, e.g.
+ * {@code jdbc:mysql://localhost:3306/test?rewriteBatchedStatements=true} with {@code roundTripMicros=0}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BulkInsertBenchmark {
+    private static final int ROWS = 1000;
+    private static final int BATCH_SIZE = 50;
+
+    private static final String INSERT_SESSION =
+            "INSERT INTO sessions (name, date, description, teacher_id) VALUES (?, ?, ?, NULL)";
+    private static final String INSERT_SESSION_WITH_ID =
+            "INSERT INTO sessions (id, name, date, description, teacher_id) VALUES (?, ?, ?, ?, NULL)";
+    private static final String INSERT_USER = "INSERT INTO users "
+            + "(email, email_normalized, last_name, first_name, password, admin, token_version) "
+            + "VALUES (?, ?, 'Bench', 'Bench', 'password', FALSE, 0)";
+    private static final String INSERT_USER_WITH_ID = "INSERT INTO users "
+            + "(id, email, email_normalized, last_name, first_name, password, admin, token_version) "
+            + "VALUES (?, ?, ?, 'Bench', 'Bench', 'password', FALSE, 0)";
+
+    @Param("jdbc:h2:mem:bulk-insert;MODE=MySQL;DB_CLOSE_DELAY=-1")
+    public String jdbcUrl;
+
+    @Param("sa")
+    public String user;
+
+    @Param("")
+    public String password;
+
+    @Param({"0", "250"})
+    public long roundTripMicros;
+
+    private final TimeOrderedIds ids = new TimeOrderedIds(0);
+    private Connection connection;
+    private long emailCounter;
+
+    @Setup
+    public void setUp() throws SQLException {
+        Flyway.configure().dataSource(jdbcUrl, user, password).load().migrate();
+        connection = DriverManager.getConnection(jdbcUrl, user, password);
+        connection.setAutoCommit(false);
+    }
+
+    @Setup(Level.Iteration)
+    public void emptyTables() throws SQLException {
+        // Each iteration starts from empty tables, so that the indexes don't grow through the run
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("DELETE FROM sessions");
+            statement.executeUpdate("DELETE FROM users");
+        }
+        connection.commit();
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long sessionsWithIdentity() throws SQLException {
+        long lastId = 0;
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_SESSION, Statement.RETURN_GENERATED_KEYS)) {
+            Timestamp date = new Timestamp(System.currentTimeMillis());
+            for (int i = 0; i < ROWS; i++) {
+                insert.setString(1, "Yoga " + i);
+                insert.setTimestamp(2, date);
+                insert.setString(3, "Session " + i);
+                insert.executeUpdate();
+                roundTrip();
+                try (ResultSet keys = insert.getGeneratedKeys()) {
+                    keys.next();
+                    lastId = keys.getLong(1);
+                }
+            }
+        }
+        connection.commit();
+        return lastId;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long sessionsBatched() throws SQLException {
+        long lastId = 0;
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_SESSION_WITH_ID)) {
+            Timestamp date = new Timestamp(System.currentTimeMillis());
+            for (int i = 0; i < ROWS; i++) {
+                lastId = ids.next();
+                insert.setLong(1, lastId);
+                insert.setString(2, "Yoga " + i);
+                insert.setTimestamp(3, date);
+                insert.setString(4, "Session " + i);
+                addToBatch(insert, i);
+            }
+        }
+        connection.commit();
+        return lastId;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long usersWithIdentity() throws SQLException {
+        long lastId = 0;
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_USER, Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < ROWS; i++) {
+                String email = nextEmail();
+                insert.setString(1, email);
+                insert.setString(2, email);
+                insert.executeUpdate();
+                roundTrip();
+                try (ResultSet keys = insert.getGeneratedKeys()) {
+                    keys.next();
+                    lastId = keys.getLong(1);
+                }
+            }
+        }
+        connection.commit();
+        return lastId;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long usersBatched() throws SQLException {
+        long lastId = 0;
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_USER_WITH_ID)) {
+            for (int i = 0; i < ROWS; i++) {
+                String email = nextEmail();
+                lastId = ids.next();
+                insert.setLong(1, lastId);
+                insert.setString(2, email);
+                insert.setString(3, email);
+                addToBatch(insert, i);
+            }
+        }
+        connection.commit();
+        return lastId;
+    }
+
+    private void addToBatch(PreparedStatement insert, int row) throws SQLException {
+        insert.addBatch();
+        if ((row + 1) % BATCH_SIZE == 0 || row == ROWS - 1) {
+            insert.executeBatch();
+            roundTrip();
+        }
+    }
+
+    private void roundTrip() {
+        if (roundTripMicros > 0) {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(roundTripMicros));
+        }
+    }
+
+    private String nextEmail() {
+        return "bench" + emailCounter++ + "@studio.com";
+    }
+}
@@ -0,0 +1,54 @@
+package com.openclassrooms.starterjwt.benchmark;
+
+import com.openclassrooms.starterjwt.security.jwt.JwtAlgorithm;
+import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.security.jwt.JwtVerification;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sign (login, refresh) and verify (every authenticated request) throughput per JWT algorithm.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtAlgorithmBenchmark {
+    @Param({"HS256", "HS512", "ES256", "EdDSA"})
+    private String algorithm;
+
+    private JwtUtils jwtUtils;
+    private UserDetailsImpl principal;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtils = BenchmarkSupport.jwtUtils(JwtAlgorithm.fromId(algorithm));
+        principal = (UserDetailsImpl) BenchmarkSupport.authentication().getPrincipal();
+        token = jwtUtils.generateJwtToken(principal);
+    }
+
+    @Benchmark
+    public String sign() {
+        return jwtUtils.generateJwtToken(principal);
+    }
+
+    @Benchmark
+    public JwtVerification verify() {
+        return jwtUtils.verify(token);
+    }
+}
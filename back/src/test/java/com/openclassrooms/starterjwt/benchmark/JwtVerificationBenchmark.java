@@ -0,0 +1,53 @@
+package com.openclassrooms.starterjwt.benchmark;
+
+import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.security.jwt.JwtVerification;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of the token check done by AuthTokenFilter.
+ * <p>
+ * {@code validateThenParse} reproduces the former filter path: two parsers built from the string
+ * secret and two signature verifications. {@code singlePassVerify} is the current path.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtVerificationBenchmark {
+    private JwtUtils jwtUtils;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtils = BenchmarkSupport.jwtUtils();
+        token = jwtUtils.generateJwtToken(BenchmarkSupport.authentication());
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public String validateThenParse() {
+        Jwts.parser().setSigningKey(BenchmarkSupport.JWT_SECRET).build().parseClaimsJws(token);
+        return Jwts.parser().setSigningKey(BenchmarkSupport.JWT_SECRET).build().parseClaimsJws(token).getBody().getSubject();
+    }
+
+    @Benchmark
+    public String singlePassVerify() {
+        JwtVerification verification = jwtUtils.verify(token);
+        return verification.claims().getSubject();
+    }
+}
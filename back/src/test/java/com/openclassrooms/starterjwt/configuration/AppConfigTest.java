@@ -0,0 +1,33 @@
+package com.openclassrooms.starterjwt.configuration;
+
+import com.openclassrooms.starterjwt.util.TimeOrderedIds;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Unit Tests - AppConfig")
+class AppConfigTest {
+
+    @Test
+    @DisplayName("idNode - Should accept the nodes between 0 and the maximum")
+    void testIdNode_InRange_ShouldReturnIt() {
+        assertThat(AppConfig.idNode("0")).isZero();
+        assertThat(AppConfig.idNode(" 7 ")).isEqualTo(7);
+        assertThat(AppConfig.idNode(String.valueOf(TimeOrderedIds.MAX_NODE))).isEqualTo(TimeOrderedIds.MAX_NODE);
+    }
+
+    @Test
+    @DisplayName("idNode - Should refuse to start with a missing, invalid or out of range node, naming ID_NODE")
+    void testIdNode_MissingOrOutOfRange_ShouldThrow() {
+        assertThatThrownBy(() -> AppConfig.idNode(""))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("ID_NODE")
+                .hasMessageContaining("single-node");
+        assertThatThrownBy(() -> AppConfig.idNode("abc")).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> AppConfig.idNode("-1")).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> AppConfig.idNode(String.valueOf(TimeOrderedIds.MAX_NODE + 1)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
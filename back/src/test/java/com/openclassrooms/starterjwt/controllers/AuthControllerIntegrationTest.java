@@ -3,8 +3,13 @@ package com.openclassrooms.starterjwt.controllers;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.payload.request.LoginRequest;
+import com.openclassrooms.starterjwt.payload.request.RefreshTokenRequest;
 import com.openclassrooms.starterjwt.payload.request.SignupRequest;
+import com.openclassrooms.starterjwt.payload.response.JwtResponse;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -12,12 +17,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -42,10 +50,15 @@ class AuthControllerIntegrationTest {
     @Autowired
     private PasswordEncoder passwordEncoder;  // ← Le VRAI encoder
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @BeforeEach
     void setUp() {
         // Nettoyer la base H2 avant chaque test
         userRepository.deleteAll();
+        // Les contextes Spring partagent la base H2 et le cache de second niveau, que les autres ont pu laisser périmé
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
     }
 
     // ==================== TESTS POST /api/auth/login ====================
@@ -194,6 +207,29 @@ class AuthControllerIntegrationTest {
                 .andExpect(jsonPath("$.username", is("admin@yoga.com")));
     }
 
+    @Test
+    @DisplayName("POST /api/auth/login - Should authenticate whatever the case of the email")
+    void testLogin_WithEmailInOtherCase_ShouldReturnJwtToken() throws Exception {
+        // GIVEN
+        userRepository.save(User.builder()
+                .email("yoga@test.com")
+                .firstName("John")
+                .lastName("Doe")
+                .password(passwordEncoder.encode("password123"))
+                .admin(false)
+                .build());
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail("Yoga@Test.COM ");
+        loginRequest.setPassword("password123");
+
+        // WHEN & THEN - Le nom d'utilisateur reste l'email tel qu'inscrit
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username", is("yoga@test.com")));
+    }
+
     // ==================== TESTS POST /api/auth/register ====================
 
     @Test
@@ -223,6 +259,63 @@ class AuthControllerIntegrationTest {
         assertThat(userInDb.isAdmin()).isFalse();
     }
 
+    @Test
+    @DisplayName("POST /api/auth/register - Should make the email resolvable from the second-level cache")
+    void testRegister_ShouldCacheEmailLookup() throws Exception {
+        // GIVEN - L'email est cherché avant d'exister
+        assertThat(userRepository.findByEmail("cached@yoga.com")).isEmpty();
+        SignupRequest signupRequest = new SignupRequest();
+        signupRequest.setEmail("cached@yoga.com");
+        signupRequest.setFirstName("Jane");
+        signupRequest.setLastName("Smith");
+        signupRequest.setPassword("securePassword123");
+        mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(signupRequest)))
+                .andExpect(status().isOk());
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // WHEN
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail("cached@yoga.com");
+        loginRequest.setPassword("securePassword123");
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isOk());
+
+        // THEN - L'email est résolu sans requête SQL
+        assertThat(statistics.getNaturalIdCacheHitCount()).isPositive();
+        assertThat(statistics.getNaturalIdQueryExecutionCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("POST /api/auth/register - Should return 400 when the email only differs by its case")
+    void testRegister_WithExistingEmailInOtherCase_ShouldReturnBadRequest() throws Exception {
+        // GIVEN
+        userRepository.save(User.builder()
+                .email("existing@yoga.com")
+                .firstName("Existing")
+                .lastName("User")
+                .password(passwordEncoder.encode("password123"))
+                .admin(false)
+                .build());
+        SignupRequest signupRequest = new SignupRequest();
+        signupRequest.setEmail("Existing@Yoga.COM");
+        signupRequest.setFirstName("Jane");
+        signupRequest.setLastName("Smith");
+        signupRequest.setPassword("securePassword123");
+
+        // WHEN & THEN
+        mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(signupRequest)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("Error: This Email is already taken")));
+        assertThat(userRepository.count()).isEqualTo(1);
+    }
+
     @Test
     @DisplayName("POST /api/auth/register - Should return 400 when email already exists")
     void testRegister_WithExistingEmail_ShouldReturnBadRequest() throws Exception {
@@ -325,6 +418,128 @@ class AuthControllerIntegrationTest {
         assertThat(userInDb.isAdmin()).isFalse();
     }
 
+    @Test
+    @DisplayName("POST /api/auth/login - Should re-encode a password stored at another BCrypt cost")
+    void testLogin_WithLegacyHash_ShouldUpgradePassword() throws Exception {
+        // GIVEN - Un hash BCrypt historique, sans préfixe et avec un autre coût
+        String legacyHash = new BCryptPasswordEncoder(5).encode("legacyPassword");
+        userRepository.save(User.builder()
+                .email("legacy@yoga.com")
+                .firstName("Legacy")
+                .lastName("User")
+                .password(legacyHash)
+                .admin(false)
+                .build());
+
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail("legacy@yoga.com");
+        loginRequest.setPassword("legacyPassword");
+
+        // WHEN
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isOk());
+
+        // THEN - Le nouveau hash est enregistré en arrière-plan
+        String storedPassword = legacyHash;
+        for (int i = 0; i < 50 && storedPassword.equals(legacyHash); i++) {
+            Thread.sleep(100);
+            storedPassword = userRepository.findByEmail("legacy@yoga.com").orElseThrow().getPassword();
+        }
+        assertThat(storedPassword).startsWith("{bcrypt}$2a$04$");
+        assertThat(passwordEncoder.matches("legacyPassword", storedPassword)).isTrue();
+    }
+
+    // ==================== TESTS POST /api/auth/refresh & /api/auth/logout ====================
+
+    private JwtResponse loginAs(String email, String password) throws Exception {
+        userRepository.save(User.builder()
+                .email(email)
+                .firstName("John")
+                .lastName("Doe")
+                .password(passwordEncoder.encode(password))
+                .admin(false)
+                .build());
+
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail(email);
+        loginRequest.setPassword(password);
+
+        MvcResult result = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.refreshToken", notNullValue()))
+                .andReturn();
+        return objectMapper.readValue(result.getResponse().getContentAsString(), JwtResponse.class);
+    }
+
+    private String refreshBody(String refreshToken) throws Exception {
+        RefreshTokenRequest request = new RefreshTokenRequest();
+        request.setRefreshToken(refreshToken);
+        return objectMapper.writeValueAsString(request);
+    }
+
+    @Test
+    @DisplayName("POST /api/auth/refresh - Should issue a new pair and reject the used refresh token")
+    void testRefresh_ShouldRotateRefreshToken() throws Exception {
+        // GIVEN
+        JwtResponse login = loginAs("refresh@yoga.com", "password123");
+
+        // WHEN
+        MvcResult result = mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(refreshBody(login.getRefreshToken())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token", notNullValue()))
+                .andExpect(jsonPath("$.username", is("refresh@yoga.com")))
+                .andReturn();
+        JwtResponse refreshed = objectMapper.readValue(result.getResponse().getContentAsString(), JwtResponse.class);
+
+        // THEN - Le nouveau jeton d'accès est utilisable, l'ancien refresh token ne l'est plus
+        assertThat(refreshed.getRefreshToken()).isNotEqualTo(login.getRefreshToken());
+        mockMvc.perform(get("/api/user/{id}", refreshed.getId())
+                        .header("Authorization", "Bearer " + refreshed.getToken()))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(refreshBody(login.getRefreshToken())))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @DisplayName("POST /api/auth/refresh - Should reject an unknown refresh token")
+    void testRefresh_WithUnknownToken_ShouldReturnUnauthorized() throws Exception {
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(refreshBody("unknown")))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @DisplayName("POST /api/auth/logout - Should revoke the access token and the refresh token")
+    void testLogout_ShouldRevokeTokens() throws Exception {
+        // GIVEN
+        JwtResponse login = loginAs("logout@yoga.com", "password123");
+
+        // WHEN
+        mockMvc.perform(post("/api/auth/logout")
+                        .header("Authorization", "Bearer " + login.getToken())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(refreshBody(login.getRefreshToken())))
+                .andExpect(status().isOk());
+
+        // THEN
+        mockMvc.perform(get("/api/user/{id}", login.getId())
+                        .header("Authorization", "Bearer " + login.getToken()))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(refreshBody(login.getRefreshToken())))
+                .andExpect(status().isUnauthorized());
+    }
+
     // ==================== TEST Workflow Complet ====================
 
     @Test
@@ -0,0 +1,199 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.payload.request.LoginRequest;
+import com.openclassrooms.starterjwt.payload.response.JwtResponse;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+    "oc.app.jwtSecret=testSecretKeyForIntegrationTestsOnlyMustBeLongEnoughForHS512AlgorithmAbCdEfGhIjKlMnOpQrStUvWxYz"
+})
+@DisplayName("Integration Tests - Connections released before serialization")
+class ConnectionReleaseIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ConnectionProbe connectionProbe;
+
+    private String jwtToken;
+
+    private User admin;
+
+    private Teacher teacher;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        sessionRepository.deleteAll();
+        userRepository.deleteAll();
+        teacherRepository.deleteAll();
+        // Les contextes Spring partagent la base H2 et le cache de second niveau, que les autres ont pu laisser périmé
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+
+        admin = userRepository.save(User.builder()
+                .email("admin@example.com")
+                .firstName("Admin")
+                .lastName("Test")
+                .password(passwordEncoder.encode("password"))
+                .admin(true)
+                .build());
+        teacher = new Teacher();
+        teacher.setFirstName("John");
+        teacher.setLastName("Doe");
+        teacher = teacherRepository.save(teacher);
+
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail("admin@example.com");
+        loginRequest.setPassword("password");
+        MvcResult result = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isOk())
+                .andReturn();
+        jwtToken = objectMapper.readValue(result.getResponse().getContentAsString(), JwtResponse.class).getToken();
+        connectionProbe.activeConnections.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessionRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("GET /api/user/{id} - Should hold no connection while the response is serialized")
+    void testFindUser_ShouldReleaseConnectionBeforeSerialization() throws Exception {
+        // WHEN
+        mockMvc.perform(get("/api/user/{id}", admin.getId())
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk());
+
+        // THEN
+        assertThat(connectionProbe.activeConnections).containsExactly(0);
+    }
+
+    @Test
+    @DisplayName("POST and PUT /api/session - Should hold no connection while the response is serialized")
+    void testCreateAndUpdateSession_ShouldReleaseConnectionBeforeSerialization() throws Exception {
+        // GIVEN
+        SessionDto sessionDto = new SessionDto();
+        sessionDto.setName("Yoga Session");
+        sessionDto.setDate(new Date());
+        sessionDto.setTeacher_id(teacher.getId());
+        sessionDto.setDescription("A relaxing yoga session");
+        sessionDto.setUsers(new ArrayList<>(List.of(admin.getId())));
+
+        // WHEN
+        mockMvc.perform(post("/api/session")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(sessionDto)))
+                .andExpect(status().isOk());
+        Session session = sessionRepository.findAll().get(0);
+        sessionDto.setName("Updated Session");
+        mockMvc.perform(put("/api/session/{id}", session.getId())
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(sessionDto)))
+                .andExpect(status().isOk());
+
+        // THEN
+        assertThat(connectionProbe.activeConnections).containsExactly(0, 0);
+    }
+
+    /**
+     * Records the connections checked out of the pool when a response body is about to be serialized.
+     */
+    @ControllerAdvice
+    static class ConnectionProbe implements ResponseBodyAdvice<Object> {
+        private final HikariDataSource dataSource;
+
+        final List<Integer> activeConnections = new CopyOnWriteArrayList<>();
+
+        ConnectionProbe(DataSource dataSource) {
+            this.dataSource = (HikariDataSource) dataSource;
+        }
+
+        @Override
+        public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+            return true;
+        }
+
+        @Override
+        public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                      Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                      ServerHttpRequest request, ServerHttpResponse response) {
+            activeConnections.add(dataSource.getHikariPoolMXBean().getActiveConnections());
+            return body;
+        }
+    }
+
+    @TestConfiguration
+    static class ProbeConfiguration {
+        @Bean
+        ConnectionProbe connectionProbe(DataSource dataSource) {
+            return new ConnectionProbe(dataSource);
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.StatementRecorder;
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.models.Participation;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.payload.request.LoginRequest;
+import com.openclassrooms.starterjwt.payload.response.JwtResponse;
+import com.openclassrooms.starterjwt.repository.ParticipationRepository;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+    "oc.app.jwtSecret=testSecretKeyForIntegrationTestsOnlyMustBeLongEnoughForHS512AlgorithmAbCdEfGhIjKlMnOpQrStUvWxYz"
+})
+@DisplayName("Integration Tests - Write statements per mutation")
+class MutationStatementCountIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ParticipationRepository participationRepository;
+
+    private String jwtToken;
+
+    private User admin;
+
+    private Teacher teacher;
+
+    private Session session;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        sessionRepository.deleteAll();
+        userRepository.deleteAll();
+        teacherRepository.deleteAll();
+        // Les contextes Spring partagent la base H2 et le cache de second niveau, que les autres ont pu laisser périmé
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+
+        admin = userRepository.save(User.builder()
+                .email("admin@example.com")
+                .firstName("Admin")
+                .lastName("Test")
+                .password(passwordEncoder.encode("password"))
+                .admin(true)
+                .build());
+        teacher = new Teacher();
+        teacher.setFirstName("John");
+        teacher.setLastName("Doe");
+        teacher = teacherRepository.save(teacher);
+
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail("admin@example.com");
+        loginRequest.setPassword("password");
+        MvcResult result = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isOk())
+                .andReturn();
+        jwtToken = objectMapper.readValue(result.getResponse().getContentAsString(), JwtResponse.class).getToken();
+        session = sessionRepository.save(Session.builder()
+                .name("Yoga Session")
+                .date(new Date())
+                .description("A relaxing yoga session")
+                .teacher(teacher)
+                .build());
+        StatementRecorder.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessionRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("PUT /api/session/{id} - Should update the session in a single statement when its participants don't change")
+    void testUpdateSession_ShouldWriteOnce() throws Exception {
+        // GIVEN
+        participationRepository.participate(session.getId(), admin.getId());
+        StatementRecorder.clear();
+        SessionDto sessionDto = sessionDto(List.of(admin.getId()));
+
+        // WHEN
+        mockMvc.perform(put("/api/session/{id}", session.getId())
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(sessionDto)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Updated Session"))
+                .andExpect(jsonPath("$.users[0]").value(admin.getId()));
+
+        // THEN
+        assertThat(StatementRecorder.writes()).hasSize(1).allMatch(sql -> sql.startsWith("update sessions"));
+        assertThat(sessionRepository.findById(session.getId())).get()
+                .extracting(Session::getName).isEqualTo("Updated Session");
+        assertThat(participationRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("PUT /api/session/{id} - Should write only the participants who leave and those who join")
+    void testUpdateSession_WithNewParticipants_ShouldWriteTheDifference() throws Exception {
+        // GIVEN
+        User other = userRepository.save(User.builder()
+                .email("other@example.com")
+                .firstName("Other")
+                .lastName("Test")
+                .password("password")
+                .admin(false)
+                .build());
+        participationRepository.participate(session.getId(), admin.getId());
+        StatementRecorder.clear();
+
+        // WHEN
+        mockMvc.perform(put("/api/session/{id}", session.getId())
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(sessionDto(List.of(other.getId())))))
+                .andExpect(status().isOk());
+
+        // THEN - La session, le départ de l'admin, l'arrivée de l'autre utilisateur
+        assertThat(StatementRecorder.writes()).hasSize(3);
+        assertThat(participationRepository.findAll()).extracting(Participation::getUserId).containsExactly(other.getId());
+    }
+
+    @Test
+    @DisplayName("PUT /api/session/{id} - Should remove the participants when no users are sent, like a full replacement")
+    void testUpdateSession_WithoutUsers_ShouldRemoveParticipants() throws Exception {
+        // GIVEN
+        participationRepository.participate(session.getId(), admin.getId());
+        StatementRecorder.clear();
+
+        // WHEN
+        mockMvc.perform(put("/api/session/{id}", session.getId())
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(sessionDto(null))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users").isEmpty());
+
+        // THEN
+        assertThat(StatementRecorder.writes()).hasSize(2);
+        assertThat(participationRepository.count()).isZero();
+    }
+
+    private SessionDto sessionDto(List<Long> users) {
+        SessionDto sessionDto = new SessionDto();
+        sessionDto.setName("Updated Session");
+        sessionDto.setDate(new Date());
+        sessionDto.setTeacher_id(teacher.getId());
+        sessionDto.setDescription("Updated description");
+        sessionDto.setUsers(users);
+        return sessionDto;
+    }
+
+    @Test
+    @DisplayName("PUT /api/session/{id} - Should answer 404 for an unknown session without writing anything else")
+    void testUpdateUnknownSession_ShouldReturnNotFound() throws Exception {
+        // GIVEN
+        SessionDto sessionDto = new SessionDto();
+        sessionDto.setName("Updated Session");
+        sessionDto.setDate(new Date());
+        sessionDto.setTeacher_id(teacher.getId());
+        sessionDto.setDescription("Updated description");
+        sessionDto.setUsers(List.of(admin.getId()));
+
+        // WHEN
+        mockMvc.perform(put("/api/session/{id}", 9999)
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(sessionDto)))
+                .andExpect(status().isNotFound());
+
+        // THEN
+        assertThat(StatementRecorder.writes()).hasSize(1);
+        assertThat(participationRepository.count()).isZero();
+    }
+
+    @Test
+    @DisplayName("PATCH /api/session/{id} - Should update only the given columns, without touching the participants")
+    void testPatchSession_ShouldUpdateOnlyGivenColumns() throws Exception {
+        // GIVEN
+        participationRepository.participate(session.getId(), admin.getId());
+        StatementRecorder.clear();
+
+        // WHEN
+        mockMvc.perform(patch("/api/session/{id}", session.getId())
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Renamed Session\"}"))
+                .andExpect(status().isNoContent());
+
+        // THEN - Ni la description ni les participants ne sont relus ou réécrits
+        assertThat(StatementRecorder.writes()).singleElement().satisfies(sql -> assertThat(sql)
+                .startsWith("update sessions").contains("name")
+                .doesNotContain("description", "teacher_id").doesNotContainPattern("\\bdate\\b"));
+        assertThat(StatementRecorder.statements()).noneMatch(sql -> sql.contains("participate"));
+        Session patched = sessionRepository.findById(session.getId()).orElseThrow();
+        assertThat(patched.getName()).isEqualTo("Renamed Session");
+        assertThat(patched.getDescription()).isEqualTo("A relaxing yoga session");
+        assertThat(participationRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("PATCH /api/session/{id} - Should replace the participants when they are part of the patch")
+    void testPatchSession_WithUsers_ShouldReplaceParticipants() throws Exception {
+        // GIVEN
+        User other = userRepository.save(User.builder()
+                .email("other@example.com")
+                .firstName("Other")
+                .lastName("Test")
+                .password("password")
+                .admin(false)
+                .build());
+        participationRepository.participate(session.getId(), admin.getId());
+
+        // WHEN
+        mockMvc.perform(patch("/api/session/{id}", session.getId())
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"users\": [" + other.getId() + "]}"))
+                .andExpect(status().isNoContent());
+
+        // THEN
+        assertThat(participationRepository.findAll()).extracting(Participation::getUserId)
+                .containsExactly(other.getId());
+    }
+
+    @Test
+    @DisplayName("PATCH /api/session/{id} - Should answer 404 for an unknown session and 400 for a blank name")
+    void testPatchSession_WithUnknownIdOrBlankName_ShouldBeRejected() throws Exception {
+        mockMvc.perform(patch("/api/session/{id}", 9999)
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Renamed Session\"}"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(patch("/api/session/{id}", session.getId())
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \" \"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("DELETE /api/session/{id} - Should delete the session and its participations in a single statement")
+    void testDeleteSession_ShouldWriteOnce() throws Exception {
+        // GIVEN
+        participationRepository.participate(session.getId(), admin.getId());
+        StatementRecorder.clear();
+
+        // WHEN
+        mockMvc.perform(delete("/api/session/{id}", session.getId())
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk());
+
+        // THEN
+        assertThat(StatementRecorder.writes()).hasSize(1).allMatch(sql -> sql.startsWith("delete from sessions where"));
+        assertThat(sessionRepository.existsById(session.getId())).isFalse();
+        assertThat(participationRepository.count()).isZero();
+    }
+
+    @Test
+    @DisplayName("DELETE /api/session/{id} - Should answer 404 for an unknown session")
+    void testDeleteUnknownSession_ShouldReturnNotFound() throws Exception {
+        mockMvc.perform(delete("/api/session/{id}", 9999)
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isNotFound());
+
+        assertThat(StatementRecorder.writes()).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("POST and DELETE /api/session/{id}/participate/{userId} - Should write once each")
+    void testParticipateAndLeave_ShouldWriteOnceEach() throws Exception {
+        // WHEN
+        mockMvc.perform(post("/api/session/{id}/participate/{userId}", session.getId(), admin.getId())
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk());
+        List<String> participateWrites = StatementRecorder.writes();
+        StatementRecorder.clear();
+        mockMvc.perform(delete("/api/session/{id}/participate/{userId}", session.getId(), admin.getId())
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk());
+
+        // THEN
+        assertThat(participateWrites).hasSize(1);
+        assertThat(StatementRecorder.writes()).hasSize(1);
+        assertThat(participationRepository.count()).isZero();
+    }
+
+    @Test
+    @DisplayName("DELETE /api/user/{id} - Should delete the user and its participations in a single statement")
+    void testDeleteUser_ShouldDeleteInOneStatement() throws Exception {
+        // GIVEN
+        participationRepository.participate(session.getId(), admin.getId());
+        StatementRecorder.clear();
+
+        // WHEN
+        mockMvc.perform(delete("/api/user/{id}", admin.getId())
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk());
+
+        // THEN - Plus l'insertion qui révoque les tokens d'accès déjà émis
+        assertThat(StatementRecorder.writes()).filteredOn(sql -> !sql.startsWith("insert into revoked_tokens"))
+                .hasSize(1).allMatch(sql -> sql.startsWith("delete from users"));
+        assertThat(userRepository.existsById(admin.getId())).isFalse();
+        assertThat(participationRepository.findAll()).extracting(Participation::getUserId)
+                .doesNotContain(admin.getId());
+    }
+}
@@ -10,8 +10,12 @@ import com.openclassrooms.starterjwt.payload.response.JwtResponse;
 import com.openclassrooms.starterjwt.repository.SessionRepository;
 import com.openclassrooms.starterjwt.repository.TeacherRepository;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.services.SessionJsonCache;
 import com.openclassrooms.starterjwt.services.SessionService;
 
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,6 +35,7 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -65,6 +70,12 @@ public class SessionControllerIntegrationTest {
     @Autowired
     private SessionService sessionService;
 
+    @Autowired
+    private SessionJsonCache sessionJsonCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     private String jwtToken;
 
     @BeforeEach
@@ -72,6 +83,10 @@ public class SessionControllerIntegrationTest {
         sessionRepository.deleteAll();
         userRepository.deleteAll();
         teacherRepository.deleteAll();
+        // Sessions are saved through the repository here, which the cached pages don't see
+        sessionJsonCache.invalidateListing(null);
+        // Spring contexts share the H2 database and the second-level cache, which the others may have left stale
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
 
         // Create a test user
         User user = User.builder()
@@ -93,6 +108,12 @@ public class SessionControllerIntegrationTest {
         jwtToken = obtainJwtToken("admin@example.com", "password");
     }
 
+    // Participations would otherwise outlive the class and block the user cleanup of the next ones
+    @AfterEach
+    public void tearDown() {
+        sessionRepository.deleteAll();
+    }
+
     private String obtainJwtToken(String email, String password) throws Exception {
         LoginRequest loginRequest = new LoginRequest();
         loginRequest.setEmail(email);
@@ -138,6 +159,91 @@ public class SessionControllerIntegrationTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    public void testGetSessionsByPage() throws Exception {
+        Teacher teacher = teacherRepository.findAll().get(0);
+        Teacher otherTeacher = teacherRepository.save(new Teacher().setFirstName("Jane").setLastName("Roe"));
+        for (int i = 0; i < 3; i++) {
+            sessionRepository.save(new Session()
+                    .setName("Session " + i)
+                    .setDate(new Date(1_700_000_000_000L + i * 86_400_000L))
+                    .setTeacher(teacher)
+                    .setDescription("Description " + i));
+        }
+        sessionRepository.save(new Session()
+                .setName("Other")
+                .setDate(new Date(1_700_000_000_000L))
+                .setTeacher(otherTeacher)
+                .setDescription("Other teacher"));
+
+        MvcResult first = mockMvc.perform(get("/api/session")
+                .param("teacherId", teacher.getId().toString())
+                .param("size", "2")
+                .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].name").value("Session 0"))
+                .andExpect(jsonPath("$[1].name").value("Session 1"))
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andReturn();
+
+        mockMvc.perform(get("/api/session")
+                .param("teacherId", teacher.getId().toString())
+                .param("size", "2")
+                .param("cursor", first.getResponse().getHeader("X-Next-Cursor"))
+                .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].name").value("Session 2"))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+
+        mockMvc.perform(get("/api/session")
+                .param("unpaged", "true")
+                .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(4));
+    }
+
+    @Test
+    public void testStreamSessions() throws Exception {
+        Teacher teacher = teacherRepository.findAll().get(0);
+        Long userId = userRepository.findAll().get(0).getId();
+        for (int i = 0; i < 3; i++) {
+            Session session = sessionRepository.save(new Session()
+                    .setName("Session " + i)
+                    .setDate(new Date(1_700_000_000_000L + i * 86_400_000L))
+                    .setTeacher(teacher)
+                    .setDescription("Description " + i));
+            if (i != 1) {
+                sessionService.participate(session.getId(), userId);
+            }
+        }
+
+        MvcResult result = mockMvc.perform(get("/api/session")
+                .param("stream", "true")
+                .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].name").value("Session 0"))
+                .andExpect(jsonPath("$[0].teacher_id").value(teacher.getId()))
+                .andExpect(jsonPath("$[0].users[0]").value(userId))
+                .andExpect(jsonPath("$[1].users.length()").value(0))
+                .andExpect(jsonPath("$[2].users[0]").value(userId));
+    }
+
+    @Test
+    public void testGetSessionsWithInvalidCursor() throws Exception {
+        mockMvc.perform(get("/api/session")
+                .param("cursor", "not-a-cursor")
+                .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     public void testGetSessionById() throws Exception {
         Teacher teacher = teacherRepository.findAll().get(0);
@@ -199,6 +305,35 @@ public class SessionControllerIntegrationTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    public void testCreateSessionAsNonAdminIsForbidden() throws Exception {
+        userRepository.save(User.builder()
+                .email("user@example.com")
+                .firstName("User")
+                .lastName("Test")
+                .password(passwordEncoder.encode("password"))
+                .admin(false)
+                .build());
+        String userToken = obtainJwtToken("user@example.com", "password");
+
+        SessionDto sessionDto = new SessionDto();
+        sessionDto.setName("Yoga Session");
+        sessionDto.setDate(new Date());
+        sessionDto.setTeacher_id(teacherRepository.findAll().get(0).getId());
+        sessionDto.setDescription("A relaxing yoga session");
+        sessionDto.setUsers(new ArrayList<>());
+
+        mockMvc.perform(post("/api/session")
+                .header("Authorization", "Bearer " + userToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(sessionDto)))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(delete("/api/session/{id}", 9999L)
+                .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isForbidden());
+        assertEquals(0, sessionRepository.count());
+    }
+
     @Test
     public void testGetNonExistentSession() throws Exception {
         mockMvc.perform(get("/api/session/{id}", 9999L)
@@ -225,6 +360,39 @@ public class SessionControllerIntegrationTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    public void testUpdateSessionWithUnknownParticipant() throws Exception {
+        Teacher teacher = teacherRepository.findAll().get(0);
+        Session session = sessionRepository.save(new Session()
+                .setName("Yoga Session")
+                .setDate(new Date())
+                .setTeacher(teacher)
+                .setDescription("A relaxing yoga session"));
+        Long userId = userRepository.findAll().get(0).getId();
+
+        SessionDto sessionDto = new SessionDto();
+        sessionDto.setName("Yoga Session");
+        sessionDto.setDate(new Date());
+        sessionDto.setTeacher_id(teacher.getId());
+        sessionDto.setDescription("A relaxing yoga session");
+        sessionDto.setUsers(List.of(userId, 9999L));
+
+        mockMvc.perform(put("/api/session/{id}", session.getId())
+                .header("Authorization", "Bearer " + jwtToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(sessionDto)))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Error: Users not found: [9999]"));
+
+        sessionDto.setUsers(List.of(userId));
+        mockMvc.perform(put("/api/session/{id}", session.getId())
+                .header("Authorization", "Bearer " + jwtToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(sessionDto)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users[0]").value(userId));
+    }
+
     @Test
     public void testDeleteNonExistentSession() throws Exception {
         mockMvc.perform(delete("/api/session/{id}", 9999L)
@@ -257,6 +425,18 @@ public class SessionControllerIntegrationTest {
                 .header("Authorization", "Bearer " + jwtToken))
                 .andDo(print())
                 .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/session/{id}", sessionId)
+                .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(jsonPath("$.users[0]").value(userId));
+        mockMvc.perform(get("/api/session")
+                .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(jsonPath("$[0].users[0]").value(userId));
+
+        // Joining twice is rejected by the (session_id, user_id) key
+        mockMvc.perform(post("/api/session/{id}/participate/{userId}", sessionId, userId)
+                .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isBadRequest());
     }
 
     @Test
@@ -285,6 +465,10 @@ public class SessionControllerIntegrationTest {
                 .header("Authorization", "Bearer " + jwtToken))
                 .andDo(print())
                 .andExpect(status().isOk());
+
+        mockMvc.perform(delete("/api/session/{id}/participate/{userId}", sessionId, userId)
+                .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isBadRequest());
     }
 
     @Test
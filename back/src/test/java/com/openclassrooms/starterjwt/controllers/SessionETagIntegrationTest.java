@@ -0,0 +1,299 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.payload.request.LoginRequest;
+import com.openclassrooms.starterjwt.payload.response.JwtResponse;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+    "oc.app.jwtSecret=testSecretKeyForIntegrationTestsOnlyMustBeLongEnoughForHS512AlgorithmAbCdEfGhIjKlMnOpQrStUvWxYz",
+    "oc.app.sessionCacheEnabled=true"
+})
+@DisplayName("Integration Tests - Session ETags")
+class SessionETagIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private String jwtToken;
+
+    private User admin;
+
+    private Teacher teacher;
+
+    private Session session;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        sessionRepository.deleteAll();
+        userRepository.deleteAll();
+        teacherRepository.deleteAll();
+        // Les contextes Spring partagent la base H2 et le cache de second niveau, que les autres ont pu laisser périmé
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+
+        admin = userRepository.save(User.builder()
+                .email("admin@example.com")
+                .firstName("Admin")
+                .lastName("Test")
+                .password(passwordEncoder.encode("password"))
+                .admin(true)
+                .build());
+        teacher = new Teacher();
+        teacher.setFirstName("John");
+        teacher.setLastName("Doe");
+        teacher = teacherRepository.save(teacher);
+
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail("admin@example.com");
+        loginRequest.setPassword("password");
+        MvcResult result = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isOk())
+                .andReturn();
+        jwtToken = objectMapper.readValue(result.getResponse().getContentAsString(), JwtResponse.class).getToken();
+        session = sessionRepository.save(Session.builder()
+                .name("Yoga Session")
+                .date(new Date())
+                .description("A relaxing yoga session")
+                .teacher(teacher)
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessionRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("GET /api/session/{id} - Should answer 304 without a body while the ETag matches")
+    void testFindById_WithMatchingIfNoneMatch_ShouldReturnNotModified() throws Exception {
+        // GIVEN
+        String etag = etag();
+
+        // WHEN & THEN
+        mockMvc.perform(get("/api/session/{id}", session.getId())
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().bytes(new byte[0]));
+        mockMvc.perform(get("/api/session/{id}", session.getId())
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"0-0\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("GET /api/session/{id} - Should change the ETag when a user joins, without conflicting with edits")
+    void testParticipate_ShouldChangeETagButNotVersion() throws Exception {
+        // GIVEN
+        String before = etag();
+
+        // WHEN
+        mockMvc.perform(post("/api/session/{id}/participate/{userId}", session.getId(), admin.getId())
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk());
+
+        // THEN - L'ETag lu avant l'inscription permet toujours de modifier la session
+        assertThat(etag()).isNotEqualTo(before);
+        mockMvc.perform(patch("/api/session/{id}", session.getId())
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .header(HttpHeaders.IF_MATCH, before)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Renamed Session\"}"))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    @DisplayName("PUT /api/session/{id} - Should answer 412 once another edit changed the session")
+    void testUpdate_WithStaleIfMatch_ShouldReturnPreconditionFailed() throws Exception {
+        // GIVEN - Deux administrateurs lisent la même version
+        String etag = etag();
+        SessionDto sessionDto = new SessionDto();
+        sessionDto.setName("First edit");
+        sessionDto.setDate(new Date());
+        sessionDto.setTeacher_id(teacher.getId());
+        sessionDto.setDescription("A relaxing yoga session");
+
+        // WHEN
+        mockMvc.perform(put("/api/session/{id}", session.getId())
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(sessionDto)))
+                .andExpect(status().isOk());
+        sessionDto.setName("Second edit");
+        mockMvc.perform(put("/api/session/{id}", session.getId())
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(sessionDto)))
+                .andExpect(status().isPreconditionFailed());
+
+        // THEN
+        assertThat(sessionRepository.findById(session.getId())).get()
+                .extracting(Session::getName).isEqualTo("First edit");
+        assertThat(etag()).isNotEqualTo(etag);
+    }
+
+    @Test
+    @DisplayName("PATCH /api/session/{id} - Should answer 412 for a stale or malformed If-Match")
+    void testPatch_WithStaleIfMatch_ShouldReturnPreconditionFailed() throws Exception {
+        // GIVEN
+        String etag = etag();
+        mockMvc.perform(patch("/api/session/{id}", session.getId())
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"First edit\"}"))
+                .andExpect(status().isNoContent());
+
+        // WHEN & THEN
+        for (String ifMatch : new String[]{etag, "W/" + etag, "\"abc\""}) {
+            mockMvc.perform(patch("/api/session/{id}", session.getId())
+                            .header("Authorization", "Bearer " + jwtToken)
+                            .header(HttpHeaders.IF_MATCH, ifMatch)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"name\": \"Second edit\"}"))
+                    .andExpect(status().isPreconditionFailed());
+        }
+        mockMvc.perform(patch("/api/session/{id}", session.getId())
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .header(HttpHeaders.IF_MATCH, etag())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Second edit\"}"))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    @DisplayName("DELETE /api/session/{id} - Should delete only at the version of If-Match")
+    void testDelete_WithIfMatch_ShouldCheckVersion() throws Exception {
+        // GIVEN
+        String etag = etag();
+
+        // WHEN & THEN
+        mockMvc.perform(delete("/api/session/{id}", session.getId())
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .header(HttpHeaders.IF_MATCH, "\"" + (session.getVersion() + 1) + "-1\""))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(delete("/api/session/{id}", session.getId())
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .header(HttpHeaders.IF_MATCH, etag))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/api/session/{id}", session.getId())
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .header(HttpHeaders.IF_MATCH, etag))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("GET /api/session/{id} - Should drop a deleted participant from the cached session and change the ETag")
+    void testDeleteParticipant_ShouldChangeBodyAndETag() throws Exception {
+        // GIVEN - Un membre inscrit à la session, lue (et mise en cache) avant sa suppression
+        User member = userRepository.save(User.builder()
+                .email("member@example.com")
+                .firstName("Member")
+                .lastName("Test")
+                .password(passwordEncoder.encode("password"))
+                .admin(false)
+                .build());
+        String memberToken = login("member@example.com");
+        mockMvc.perform(post("/api/session/{id}/participate/{userId}", session.getId(), member.getId())
+                        .header("Authorization", "Bearer " + memberToken))
+                .andExpect(status().isOk());
+        String before = etag();
+        mockMvc.perform(get("/api/session/{id}", session.getId())
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(jsonPath("$.users[0]").value(member.getId()));
+
+        // WHEN
+        mockMvc.perform(delete("/api/user/{id}", member.getId())
+                        .header("Authorization", "Bearer " + memberToken))
+                .andExpect(status().isOk());
+
+        // THEN
+        assertThat(etag()).isNotEqualTo(before);
+        mockMvc.perform(get("/api/session/{id}", session.getId())
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(jsonPath("$.users").isEmpty());
+        mockMvc.perform(get("/api/session")
+                        .param("size", "10")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(jsonPath("$[0].users").isEmpty());
+    }
+
+    private String login(String email) throws Exception {
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail(email);
+        loginRequest.setPassword("password");
+        MvcResult result = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readValue(result.getResponse().getContentAsString(), JwtResponse.class).getToken();
+    }
+
+    private String etag() throws Exception {
+        String etag = mockMvc.perform(get("/api/session/{id}", session.getId())
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotNull();
+        return etag;
+    }
+}
@@ -7,6 +7,9 @@ import com.openclassrooms.starterjwt.payload.request.LoginRequest;
 import com.openclassrooms.starterjwt.payload.response.JwtResponse;
 import com.openclassrooms.starterjwt.repository.TeacherRepository;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.services.TeacherService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -43,18 +46,26 @@ class TeacherControllerIntegrationTest {
     @Autowired
     private TeacherRepository teacherRepository;
 
+    @Autowired
+    private TeacherService teacherService;
+
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     private String jwtToken;
 
     @BeforeEach
     void setUp() throws Exception {
         teacherRepository.deleteAll();
         userRepository.deleteAll();
+        // Les contextes Spring partagent la base H2 et le cache de second niveau, que les autres ont pu laisser périmé
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
 
         // Create a test user
         User user = User.builder()
@@ -68,6 +79,7 @@ class TeacherControllerIntegrationTest {
 
         // Authenticate and get a JWT token
         jwtToken = obtainJwtToken("admin@example.com", "password");
+        teacherService.refresh();
     }
 
     private String obtainJwtToken(String email, String password) throws Exception {
@@ -101,6 +113,8 @@ class TeacherControllerIntegrationTest {
         teacher2.setFirstName("Jane");
         teacher2.setLastName("Smith");
         teacherRepository.save(teacher2);
+        // Les professeurs sont lus depuis un instantané, rechargé ici plutôt qu'à l'intervalle configuré
+        teacherService.refresh();
 
         // WHEN & THEN - Faire une VRAIE requête HTTP
         mockMvc.perform(get("/api/teacher")
@@ -125,6 +139,42 @@ class TeacherControllerIntegrationTest {
                 .andExpect(jsonPath("$", hasSize(0)));
     }
 
+    @Test
+    @DisplayName("GET /api/teacher - Should return 304 when the ETag still matches")
+    void testFindAllTeachers_WithMatchingEtag_ShouldReturnNotModified() throws Exception {
+        // GIVEN
+        Teacher teacher = new Teacher();
+        teacher.setFirstName("John");
+        teacher.setLastName("Doe");
+        teacherRepository.save(teacher);
+        teacherService.refresh();
+
+        String etag = mockMvc.perform(get("/api/teacher")
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // WHEN & THEN - même contenu : pas de corps
+        mockMvc.perform(get("/api/teacher")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        // WHEN & THEN - un professeur ajouté change l'ETag
+        Teacher other = new Teacher();
+        other.setFirstName("Jane");
+        other.setLastName("Smith");
+        teacherRepository.save(other);
+        teacherService.refresh();
+        mockMvc.perform(get("/api/teacher")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)));
+    }
+
     // ==================== TESTS GET /api/teacher/{id} ====================
 
     @Test
@@ -5,6 +5,11 @@ import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.payload.request.LoginRequest;
 import com.openclassrooms.starterjwt.payload.response.JwtResponse;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.jwt.TokenVersionGuard;
+import com.openclassrooms.starterjwt.services.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -46,11 +51,22 @@ class UserControllerIntegrationTest {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TokenVersionGuard tokenVersionGuard;
+
     private String jwtToken;
 
     @BeforeEach
     void setUp() throws Exception {
         userRepository.deleteAll();
+        // Les contextes Spring partagent la base H2 et le cache de second niveau, que les autres ont pu laisser périmé
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
 
         // Create a test user
         User user = User.builder()
@@ -128,6 +144,41 @@ class UserControllerIntegrationTest {
         assertThat(userRepository.findById(user.getId())).isEmpty();
     }
 
+    @Test
+    @DisplayName("DELETE /api/user/{id} - Should evict the user from the second-level cache")
+    void testDeleteUser_ShouldEvictUserFromCache() throws Exception {
+        // GIVEN - La connexion a mis l'utilisateur et son email en cache
+        User user = userRepository.findByEmail("user@example.com").orElseThrow();
+        assertThat(entityManagerFactory.getCache().contains(User.class, user.getId())).isTrue();
+
+        // WHEN
+        mockMvc.perform(delete("/api/user/{id}", user.getId())
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk());
+
+        // THEN - Ni l'id ni l'email ne résolvent encore l'utilisateur supprimé
+        assertThat(userRepository.findByEmail("user@example.com")).isEmpty();
+        assertThat(userRepository.findById(user.getId())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("GET /api/user/{id} - Should be served from the second-level cache")
+    void testFindUserById_ShouldHitSecondLevelCache() throws Exception {
+        // GIVEN
+        User user = userRepository.findByEmail("user@example.com").orElseThrow();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // WHEN
+        mockMvc.perform(get("/api/user/{id}", user.getId())
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk());
+
+        // THEN - Aucune requête SQL pour charger l'utilisateur
+        assertThat(statistics.getDomainDataRegionStatistics("users").getHitCount()).isPositive();
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
     @Test
     @DisplayName("DELETE /api/user/{id} - Should return 401 if unauthorized")
     void testDeleteUser_ShouldReturnUnauthorizedIfUnauthorized() throws Exception {
@@ -157,4 +208,70 @@ class UserControllerIntegrationTest {
                 .andDo(print())
                 .andExpect(status().isNotFound());
     }
+
+    @Test
+    @DisplayName("DELETE /api/user/{id} - Should reject the token of the deleted user afterwards")
+    void testDeleteUser_ShouldRejectTokenOfDeletedUser() throws Exception {
+        // GIVEN
+        User user = userRepository.findByEmail("user@example.com").orElseThrow();
+        mockMvc.perform(delete("/api/user/{id}", user.getId())
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk());
+
+        // WHEN & THEN - Le token est toujours signé et non expiré, mais l'utilisateur n'existe plus
+        mockMvc.perform(get("/api/user/{id}", user.getId())
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andDo(print())
+                .andExpect(status().isUnauthorized());
+    }
+
+    // ==================== TESTS token_version ====================
+
+    @Test
+    @DisplayName("setAdmin - Should refuse the tokens issued before the role changed")
+    void testSetAdmin_ShouldRejectTokenIssuedWithFormerRole() throws Exception {
+        // GIVEN - Un admin connecté
+        User admin = userRepository.save(User.builder()
+                .email("admin@example.com")
+                .firstName("Admin")
+                .lastName("Test")
+                .password(passwordEncoder.encode("password"))
+                .admin(true)
+                .build());
+        String adminToken = obtainJwtToken("admin@example.com", "password");
+
+        // WHEN - Il est rétrogradé, puis l'instance relit les versions
+        userService.setAdmin(admin.getId(), false);
+        tokenVersionGuard.refresh();
+
+        // THEN - Son ancien token est refusé, un nouveau token est accepté
+        User demoted = userRepository.findById(admin.getId()).orElseThrow();
+        assertThat(demoted.isAdmin()).isFalse();
+        assertThat(demoted.getTokenVersion()).isEqualTo(admin.getTokenVersion() + 1);
+        mockMvc.perform(get("/api/user/{id}", admin.getId())
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/user/{id}", admin.getId())
+                        .header("Authorization", "Bearer " + obtainJwtToken("admin@example.com", "password")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("changePassword - Should refuse the tokens issued with the former password")
+    void testChangePassword_ShouldRejectTokenIssuedWithFormerPassword() throws Exception {
+        // GIVEN
+        User user = userRepository.findByEmail("user@example.com").orElseThrow();
+
+        // WHEN
+        userService.changePassword(user.getId(), passwordEncoder.encode("newPassword"));
+        tokenVersionGuard.refresh();
+
+        // THEN
+        mockMvc.perform(get("/api/user/{id}", user.getId())
+                        .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/user/{id}", user.getId())
+                        .header("Authorization", "Bearer " + obtainJwtToken("user@example.com", "newPassword")))
+                .andExpect(status().isOk());
+    }
 }
@@ -3,7 +3,7 @@ package com.openclassrooms.starterjwt.models;
 import org.junit.jupiter.api.Test;
 
 import java.util.Date;
-import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -34,7 +34,7 @@ public class SessionTest {
                 .date(date)
                 .description("Relaxing yoga session")
                 .teacher(teacher)
-                .users(List.of(user))
+                .users(Set.of(user))
                 .build();
 
         // ASSERT
@@ -0,0 +1,60 @@
+package com.openclassrooms.starterjwt.models;
+
+import com.openclassrooms.starterjwt.util.TimeOrderedIds;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.generator.GeneratorCreationContext;
+import org.hibernate.service.ServiceRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Member;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Unit Tests - TimeOrderedIdGenerator")
+class TimeOrderedIdGeneratorTest {
+    private static final Member ID = Arrays.stream(Session.class.getDeclaredFields())
+            .filter(field -> field.isAnnotationPresent(TimeOrderedId.class)).findFirst().orElseThrow();
+
+    @Test
+    @DisplayName("initialize - Should generate the ids of the configured node")
+    void testInitialize_WithNode_ShouldUseIt() {
+        // GIVEN
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator();
+
+        // WHEN
+        generator.initialize(null, ID, context(5));
+
+        // THEN
+        assertThat(TimeOrderedIds.nodeOf((Long) generator.generate(null, null, null, null))).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("initialize - Should refuse to start without a node or with a node out of range")
+    void testInitialize_WithoutValidNode_ShouldThrow() {
+        assertThatThrownBy(() -> new TimeOrderedIdGenerator().initialize(null, ID, context(null)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining(TimeOrderedIdGenerator.NODE_SETTING);
+        assertThatThrownBy(() -> new TimeOrderedIdGenerator().initialize(null, ID, context(-1)))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> new TimeOrderedIdGenerator().initialize(null, ID, context(TimeOrderedIds.MAX_NODE + 1)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private static GeneratorCreationContext context(Integer node) {
+        StandardServiceRegistryBuilder registry = new StandardServiceRegistryBuilder();
+        if (node != null) {
+            registry.applySetting(TimeOrderedIdGenerator.NODE_SETTING, node);
+        }
+        ServiceRegistry serviceRegistry = registry.build();
+        // Mockito ne sait pas simuler les interfaces de Hibernate
+        return (GeneratorCreationContext) Proxy.newProxyInstance(GeneratorCreationContext.class.getClassLoader(),
+                new Class<?>[]{GeneratorCreationContext.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "getServiceRegistry" -> serviceRegistry;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,96 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@TestPropertySource(properties = {
+    "oc.app.jwtSecret=testSecretKeyForIntegrationTestsOnlyMustBeLongEnoughForHS512AlgorithmAbCdEfGhIjKlMnOpQrStUvWxYz"
+})
+@DisplayName("Integration Tests - Batched inserts")
+class BatchInsertIntegrationTest {
+    private static final int ROWS = 200;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        sessionRepository.deleteAll();
+        userRepository.deleteAll();
+        // Les contextes Spring partagent la base H2 et le cache de second niveau, que les autres ont pu laisser périmé
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        statistics = sessionFactory.getStatistics();
+    }
+
+    @Test
+    @DisplayName("Should insert sessions in JDBC batches, with ids in creation order")
+    void testSaveAllSessions_ShouldBatchInserts() {
+        // GIVEN
+        List<Session> sessions = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            sessions.add(Session.builder().name("Yoga " + i).date(new Date()).description("Session " + i).build());
+        }
+        statistics.clear();
+
+        // WHEN
+        List<Session> saved = sessionRepository.saveAll(sessions);
+
+        // THEN - Un statement préparé par lot de 50, au lieu d'un par ligne
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(ROWS);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(ROWS / 50);
+        assertThat(saved).extracting(Session::getId).isSorted().doesNotHaveDuplicates();
+        assertThat(sessionRepository.count()).isEqualTo(ROWS);
+    }
+
+    @Test
+    @DisplayName("Should assign the user id on persist, before any insert")
+    void testPersistUser_ShouldAssignIdBeforeInsert() {
+        // GIVEN
+        statistics.clear();
+
+        // WHEN
+        Long id = transactionTemplate.execute(status -> {
+            User user = new User("batch@test.com", "Batch", "User", "password", false);
+            entityManager.persist(user);
+            assertThat(statistics.getEntityInsertCount()).isZero();
+            return user.getId();
+        });
+
+        // THEN
+        assertThat(id).isNotNull();
+        assertThat(userRepository.findById(id)).isPresent();
+    }
+}
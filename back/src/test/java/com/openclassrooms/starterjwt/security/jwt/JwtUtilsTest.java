@@ -0,0 +1,210 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import com.openclassrooms.starterjwt.security.services.Role;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.io.Encoders;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.KeyPair;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Unit Tests - JwtUtils")
+class JwtUtilsTest {
+
+    private static final String SECRET =
+            "testSecretKeyForIntegrationTestsOnlyMustBeLongEnoughForHS512AlgorithmAbCdEfGhIjKlMnOpQrStUvWxYz";
+
+    private UserDetailsImpl principal;
+
+    @BeforeEach
+    void setUp() {
+        principal = UserDetailsImpl.builder()
+                .id(1L)
+                .username("user@yoga.com")
+                .firstName("John")
+                .lastName("Doe")
+                .admin(false)
+                .tokenVersion(0)
+                .build();
+    }
+
+    // ==================== OUTILS ====================
+
+    private static JwtKeyProperties.JwtKey generateKey(JwtAlgorithm algorithm, String kid) {
+        JwtKeyProperties.JwtKey key = new JwtKeyProperties.JwtKey();
+        key.setKid(kid);
+        key.setAlgorithm(algorithm.id());
+        switch (algorithm) {
+            case HS256 -> key.setSecret(Encoders.BASE64.encode(Jwts.SIG.HS256.key().build().getEncoded()));
+            case HS512 -> key.setSecret(Encoders.BASE64.encode(Jwts.SIG.HS512.key().build().getEncoded()));
+            default -> {
+                KeyPair keyPair = algorithm == JwtAlgorithm.ES256
+                        ? Jwts.SIG.ES256.keyPair().build()
+                        : Jwks.CRV.Ed25519.keyPair().build();
+                key.setPrivateKey(Encoders.BASE64.encode(keyPair.getPrivate().getEncoded()));
+                key.setPublicKey(Encoders.BASE64.encode(keyPair.getPublic().getEncoded()));
+            }
+        }
+        return key;
+    }
+
+    private static JwtUtils jwtUtils(String secret, String signingKeyId, JwtKeyProperties.JwtKey... keys) {
+        JwtKeyProperties properties = new JwtKeyProperties();
+        properties.setJwtKeys(List.of(keys));
+
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", secret);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 60000);
+        ReflectionTestUtils.setField(jwtUtils, "jwtSigningKeyId", signingKeyId);
+        ReflectionTestUtils.setField(jwtUtils, "jwtKeyProperties", properties);
+        ReflectionTestUtils.invokeMethod(jwtUtils, "init");
+        return jwtUtils;
+    }
+
+    private static JwtKeyProperties.JwtKey verifyOnly(JwtKeyProperties.JwtKey key) {
+        JwtKeyProperties.JwtKey publicKey = new JwtKeyProperties.JwtKey();
+        publicKey.setKid(key.getKid());
+        publicKey.setAlgorithm(key.getAlgorithm());
+        publicKey.setPublicKey(key.getPublicKey());
+        return publicKey;
+    }
+
+    // ==================== TESTS ====================
+
+    @ParameterizedTest
+    @EnumSource(JwtAlgorithm.class)
+    @DisplayName("generateJwtToken - Should sign with the configured algorithm and kid")
+    void testGenerateJwtToken_ShouldRoundTripForEveryAlgorithm(JwtAlgorithm algorithm) {
+        // GIVEN
+        JwtUtils jwtUtils = jwtUtils(null, "k1", generateKey(algorithm, "k1"));
+
+        // WHEN
+        String token = jwtUtils.generateJwtToken(principal);
+        JwtVerification verification = jwtUtils.verify(token);
+
+        // THEN
+        assertThat(verification.isValid()).isTrue();
+        assertThat(verification.claims().getSubject()).isEqualTo("user@yoga.com");
+        String header = new String(Decoders.BASE64URL.decode(token.substring(0, token.indexOf('.'))));
+        assertThat(header).contains("\"kid\":\"k1\"").contains("\"alg\":\"" + algorithm.id() + "\"");
+    }
+
+    @Test
+    @DisplayName("getUserDetailsFromClaims - Should map the role claim to the shared authorities")
+    void testGetUserDetailsFromClaims_ShouldMapRoleClaim() {
+        // GIVEN
+        JwtUtils jwtUtils = jwtUtils(SECRET, "default");
+        UserDetailsImpl admin = UserDetailsImpl.builder().id(2L).username("admin@yoga.com").admin(true).tokenVersion(0).build();
+
+        // WHEN
+        Claims userClaims = jwtUtils.verify(jwtUtils.generateJwtToken(principal)).claims();
+        Claims adminClaims = jwtUtils.verify(jwtUtils.generateJwtToken(admin)).claims();
+
+        // THEN
+        assertThat(userClaims.get(JwtUtils.CLAIM_ROLE)).isEqualTo("USER");
+        assertThat(jwtUtils.getUserDetailsFromClaims(userClaims).getAuthorities()).isSameAs(Role.USER.getAuthorities());
+        assertThat(adminClaims.get(JwtUtils.CLAIM_ROLE)).isEqualTo("ADMIN");
+        assertThat(jwtUtils.getUserDetailsFromClaims(adminClaims).getAuthorities()).isSameAs(Role.ADMIN.getAuthorities());
+    }
+
+    @Test
+    @DisplayName("getUserDetailsFromClaims - Should fall back to the admin claim of older tokens")
+    void testGetUserDetailsFromClaims_WithoutRoleClaim_ShouldUseAdminClaim() {
+        // GIVEN
+        Claims claims = Jwts.claims()
+                .subject("admin@yoga.com")
+                .add(JwtUtils.CLAIM_ID, 2L)
+                .add(JwtUtils.CLAIM_TOKEN_VERSION, 0)
+                .add(JwtUtils.CLAIM_ADMIN, true)
+                .build();
+
+        // WHEN & THEN
+        assertThat(jwtUtils(SECRET, "default").getUserDetailsFromClaims(claims).getRole()).isEqualTo(Role.ADMIN);
+    }
+
+    @Test
+    @DisplayName("verify - Should accept tokens of the previous key after a rotation")
+    void testVerify_AfterRotation_ShouldAcceptBothKeys() {
+        // GIVEN - k1 signe, k2 est déployée en vérification seule
+        JwtKeyProperties.JwtKey k1 = generateKey(JwtAlgorithm.HS512, "k1");
+        JwtKeyProperties.JwtKey k2 = generateKey(JwtAlgorithm.ES256, "k2");
+        JwtUtils before = jwtUtils(null, "k1", k1, verifyOnly(k2));
+        String oldToken = before.generateJwtToken(principal);
+
+        // WHEN - k2 devient la clé de signature
+        JwtUtils after = jwtUtils(null, "k2", k1, k2);
+        String newToken = after.generateJwtToken(principal);
+
+        // THEN
+        assertThat(after.verify(oldToken).isValid()).isTrue();
+        assertThat(before.verify(newToken).isValid()).isTrue();
+        assertThat(jwtUtils(null, "k2", k2).verify(oldToken).failure())
+                .isEqualTo(JwtVerification.Failure.INVALID_SIGNATURE);
+    }
+
+    @Test
+    @DisplayName("verify - Should accept legacy tokens without kid with the default key")
+    void testVerify_WithoutKid_ShouldUseDefaultKey() {
+        // GIVEN
+        JwtUtils jwtUtils = jwtUtils(SECRET, "default");
+        String legacyToken = Jwts.builder()
+                .subject("user@yoga.com")
+                .expiration(new Date(System.currentTimeMillis() + 60000))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)), Jwts.SIG.HS512)
+                .compact();
+
+        // WHEN & THEN
+        assertThat(jwtUtils.verify(legacyToken).isValid()).isTrue();
+    }
+
+    @Test
+    @DisplayName("verify - Should reject a token whose algorithm doesn't match its key")
+    void testVerify_WithOtherAlgorithm_ShouldReject() {
+        // GIVEN - même secret, mais HS256 au lieu du HS512 configuré
+        JwtUtils jwtUtils = jwtUtils(SECRET, "default");
+        String token = Jwts.builder()
+                .header().keyId("default").and()
+                .subject("user@yoga.com")
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)), Jwts.SIG.HS256)
+                .compact();
+
+        // WHEN & THEN
+        assertThat(jwtUtils.verify(token).failure()).isEqualTo(JwtVerification.Failure.INVALID_SIGNATURE);
+    }
+
+    @Test
+    @DisplayName("verify - Should reject an unknown kid")
+    void testVerify_WithUnknownKid_ShouldReject() {
+        // GIVEN
+        String token = jwtUtils(null, "k1", generateKey(JwtAlgorithm.EDDSA, "k1")).generateJwtToken(principal);
+
+        // WHEN & THEN
+        assertThat(jwtUtils(null, "k2", generateKey(JwtAlgorithm.EDDSA, "k2")).verify(token).failure())
+                .isEqualTo(JwtVerification.Failure.INVALID_SIGNATURE);
+    }
+
+    @Test
+    @DisplayName("init - Should refuse a verify-only signing key")
+    void testInit_WithVerifyOnlySigningKey_ShouldFail() {
+        // GIVEN
+        JwtKeyProperties.JwtKey publicKey = verifyOnly(generateKey(JwtAlgorithm.ES256, "k1"));
+
+        // WHEN & THEN
+        assertThatThrownBy(() -> jwtUtils(null, "k1", publicKey))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
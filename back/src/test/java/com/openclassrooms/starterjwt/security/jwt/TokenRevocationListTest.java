@@ -0,0 +1,184 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import com.openclassrooms.starterjwt.models.RevokedToken;
+import com.openclassrooms.starterjwt.repository.RevokedTokenRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Unit Tests - TokenRevocationList")
+class TokenRevocationListTest {
+
+    @Mock
+    private RevokedTokenRepository revokedTokenRepository;
+
+    private TokenRevocationList revocationList;
+
+    @BeforeEach
+    void setUp() {
+        revocationList = new TokenRevocationList(revokedTokenRepository, 60_000, 100);
+    }
+
+    private static Claims claims(String tokenId, Long userId) {
+        return Jwts.claims().id(tokenId).add(JwtUtils.CLAIM_ID, userId).build();
+    }
+
+    @Test
+    @DisplayName("load - Should rebuild the revocations from the table")
+    void testLoad_ShouldRestoreRevocations() {
+        // GIVEN
+        Instant later = Instant.now().plusSeconds(60);
+        when(revokedTokenRepository.findByExpiresAtAfter(any(Instant.class))).thenReturn(List.of(
+                new RevokedToken("jti-1", later),
+                new RevokedToken(TokenRevocationList.USER_PREFIX + 7, later)));
+
+        // WHEN
+        revocationList.load();
+
+        // THEN
+        assertThat(revocationList.isRevoked(claims("jti-1", 1L))).isTrue();
+        assertThat(revocationList.isRevoked(claims("jti-2", 7L))).isTrue();
+        assertThat(revocationList.isRevoked(claims("jti-2", 1L))).isFalse();
+    }
+
+    @Test
+    @DisplayName("revokeToken - Should persist the revocation and reject the token")
+    void testRevokeToken_ShouldPersistAndReject() {
+        // GIVEN
+        revocationList.load();
+        Instant expiresAt = Instant.now().plusSeconds(60);
+
+        // WHEN
+        revocationList.revokeToken("jti-1", expiresAt);
+
+        // THEN
+        verify(revokedTokenRepository).save(new RevokedToken("jti-1", expiresAt));
+        assertThat(revocationList.isRevoked(claims("jti-1", 1L))).isTrue();
+        assertThat(revocationList.isRevoked(claims("jti-2", 1L))).isFalse();
+    }
+
+    @Test
+    @DisplayName("revokeUser - Should reject every token of the user until the access tokens expire")
+    void testRevokeUser_ShouldRejectAllTokensOfUser() {
+        // GIVEN
+        revocationList.load();
+        ArgumentCaptor<RevokedToken> captor = ArgumentCaptor.forClass(RevokedToken.class);
+
+        // WHEN
+        revocationList.revokeUser(5L);
+
+        // THEN
+        verify(revokedTokenRepository).save(captor.capture());
+        assertThat(captor.getValue().getTokenId()).isEqualTo("user:5");
+        assertThat(captor.getValue().getExpiresAt()).isAfter(Instant.now().plusSeconds(50));
+        assertThat(revocationList.isRevoked(claims("any", 5L))).isTrue();
+        assertThat(revocationList.isRevoked(claims(null, 6L))).isFalse();
+    }
+
+    @Test
+    @DisplayName("revokeToken - Should stay exact beyond the Bloom filter capacity")
+    void testRevokeToken_BeyondCapacity_ShouldStayExact() {
+        // GIVEN
+        revocationList.load();
+
+        // WHEN
+        for (int i = 0; i < 500; i++) {
+            revocationList.revokeToken("jti-" + i, Instant.now().plusSeconds(60));
+        }
+
+        // THEN
+        assertThat(revocationList.size()).isEqualTo(500);
+        for (int i = 0; i < 500; i++) {
+            assertThat(revocationList.isRevoked(claims("jti-" + i, null))).isTrue();
+        }
+        assertThat(revocationList.isRevoked(claims("jti-500", null))).isFalse();
+    }
+
+    @Test
+    @DisplayName("purge - Should delete expired rows and drop them from memory")
+    void testPurge_ShouldDropExpiredRevocations() {
+        // GIVEN
+        revocationList.load();
+        revocationList.revokeToken("jti-1", Instant.now().plusSeconds(60));
+        when(revokedTokenRepository.findByExpiresAtAfter(any(Instant.class))).thenReturn(List.of());
+
+        // WHEN
+        revocationList.purge();
+
+        // THEN
+        verify(revokedTokenRepository).deleteExpired(any(Instant.class));
+        assertThat(revocationList.size()).isZero();
+        assertThat(revocationList.isRevoked(claims("jti-1", 1L))).isFalse();
+    }
+
+    @Test
+    @DisplayName("revokeToken - Should apply the revocation only once the transaction has committed")
+    void testRevokeToken_InTransaction_ShouldWaitForCommit() {
+        // GIVEN
+        revocationList.load();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // WHEN
+            revocationList.revokeToken("jti-1", Instant.now().plusSeconds(60));
+
+            // THEN - Rien en mémoire avant le commit, la révocation après
+            assertThat(revocationList.isRevoked(claims("jti-1", 1L))).isFalse();
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertThat(revocationList.isRevoked(claims("jti-1", 1L))).isTrue();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("revokeToken - Should leave nothing in memory when the transaction rolls back")
+    void testRevokeToken_RolledBack_ShouldNotRevoke() {
+        // GIVEN
+        revocationList.load();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // WHEN
+            revocationList.revokeToken("jti-1", Instant.now().plusSeconds(60));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // THEN
+        assertThat(revocationList.isRevoked(claims("jti-1", 1L))).isFalse();
+        assertThat(revocationList.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("refresh - Should pick up the revocations made by another instance")
+    void testRefresh_ShouldPickUpRemoteRevocations() {
+        // GIVEN
+        revocationList.load();
+        when(revokedTokenRepository.findByExpiresAtAfter(any(Instant.class)))
+                .thenReturn(List.of(new RevokedToken("jti-remote", Instant.now().plusSeconds(60))));
+
+        // WHEN
+        revocationList.refresh();
+
+        // THEN
+        assertThat(revocationList.isRevoked(claims("jti-remote", 1L))).isTrue();
+        verify(revokedTokenRepository, never()).deleteExpired(any(Instant.class));
+    }
+}
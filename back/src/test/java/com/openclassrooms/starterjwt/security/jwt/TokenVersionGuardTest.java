@@ -0,0 +1,74 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Unit Tests - TokenVersionGuard")
+class TokenVersionGuardTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private TokenVersionGuard guard;
+
+    @BeforeEach
+    void setUp() {
+        guard = new TokenVersionGuard(userRepository);
+    }
+
+    private static User user(Long id, int tokenVersion) {
+        return User.builder()
+                .id(id)
+                .email("user" + id + "@test.com")
+                .firstName("John")
+                .lastName("Doe")
+                .password("password")
+                .tokenVersion(tokenVersion)
+                .build();
+    }
+
+    @Test
+    @DisplayName("load - Should reject the tokens issued below the version of the table")
+    void testLoad_ShouldRejectStaleTokens() {
+        // GIVEN
+        when(userRepository.findByTokenVersionGreaterThan(0)).thenReturn(List.of(user(7L, 2)));
+
+        // WHEN
+        guard.load();
+
+        // THEN
+        assertThat(guard.isCurrent(7L, 1)).isFalse();
+        assertThat(guard.isCurrent(7L, 2)).isTrue();
+        assertThat(guard.isCurrent(1L, 0)).isTrue();
+    }
+
+    @Test
+    @DisplayName("refresh - Should pick up the versions bumped since the last load, by this instance or another")
+    void testRefresh_ShouldPickUpBumpedVersions() {
+        // GIVEN - La version de l'utilisateur 7 est incrémentée après le démarrage
+        when(userRepository.findByTokenVersionGreaterThan(0))
+                .thenReturn(List.of())
+                .thenReturn(List.of(user(7L, 1)));
+        guard.load();
+        assertThat(guard.isCurrent(7L, 0)).isTrue();
+
+        // WHEN
+        guard.refresh();
+
+        // THEN
+        assertThat(guard.isCurrent(7L, 0)).isFalse();
+        assertThat(guard.isCurrent(7L, 1)).isTrue();
+    }
+}
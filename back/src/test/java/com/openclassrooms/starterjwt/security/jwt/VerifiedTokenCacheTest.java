@@ -0,0 +1,110 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@DisplayName("Unit Tests - VerifiedTokenCache")
+class VerifiedTokenCacheTest {
+
+    private JwtUtils jwtUtils;
+    private SimpleMeterRegistry meterRegistry;
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret",
+                "testSecretKeyForIntegrationTestsOnlyMustBeLongEnoughForHS512AlgorithmAbCdEfGhIjKlMnOpQrStUvWxYz");
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 60000);
+        ReflectionTestUtils.invokeMethod(jwtUtils, "init");
+        jwtUtils = spy(jwtUtils);
+
+        UserDetailsImpl principal = UserDetailsImpl.builder()
+                .id(1L)
+                .username("user@yoga.com")
+                .firstName("John")
+                .lastName("Doe")
+                .admin(false)
+                .tokenVersion(0)
+                .build();
+        token = jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(principal, null));
+
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    @DisplayName("verify - Should verify a token only once while it is cached")
+    void testVerify_ShouldServeRepeatedTokenFromCache() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(jwtUtils, meterRegistry, true, 100);
+
+        JwtVerification first = cache.verify(token);
+        JwtVerification second = cache.verify(token);
+
+        assertThat(first.isValid()).isTrue();
+        assertThat(second.claims().getSubject()).isEqualTo("user@yoga.com");
+        verify(jwtUtils, times(1)).verify(token);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("verify - Should never cache an invalid token")
+    void testVerify_ShouldNotCacheInvalidTokens() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(jwtUtils, meterRegistry, true, 100);
+        String tampered = token.substring(0, token.length() - 4) + "AAAA";
+
+        assertThat(cache.verify(tampered).isValid()).isFalse();
+        assertThat(cache.verify(tampered).isValid()).isFalse();
+
+        verify(jwtUtils, times(2)).verify(tampered);
+        assertThat(cache.estimatedSize()).isZero();
+    }
+
+    @Test
+    @DisplayName("verify - Should keep memory flat under a flood of unique garbage tokens")
+    void testVerify_WithGarbageFlood_ShouldNotGrow() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(jwtUtils, meterRegistry, true, 100);
+
+        for (int i = 0; i < 1000; i++) {
+            cache.verify("garbage." + i + ".token");
+        }
+        cache.cleanUp();
+
+        assertThat(cache.estimatedSize()).isZero();
+    }
+
+    @Test
+    @DisplayName("verify - Should stay bounded by the configured size")
+    void testVerify_ShouldEvictBeyondMaxSize() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(jwtUtils, meterRegistry, true, 2);
+
+        for (long id = 1; id <= 10; id++) {
+            UserDetailsImpl principal = UserDetailsImpl.builder().id(id).username("user" + id + "@yoga.com").tokenVersion(0).build();
+            cache.verify(jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(principal, null)));
+        }
+        cache.cleanUp();
+
+        assertThat(cache.estimatedSize()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("verify - Should delegate every call when the cache is disabled")
+    void testVerify_WhenDisabled_ShouldAlwaysDelegate() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(jwtUtils, meterRegistry, false, 100);
+
+        cache.verify(token);
+        cache.verify(token);
+
+        verify(jwtUtils, times(2)).verify(token);
+    }
+}
@@ -0,0 +1,59 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Unit Tests - BCryptCostPasswordEncoder")
+class BCryptCostPasswordEncoderTest {
+
+    private final BCryptCostPasswordEncoder encoder = new BCryptCostPasswordEncoder(5);
+
+    @Test
+    @DisplayName("upgradeEncoding - Should not upgrade a hash stored at the current cost")
+    void testUpgradeEncoding_WithSameCost_ShouldReturnFalse() {
+        assertThat(encoder.upgradeEncoding(encoder.encode("password"))).isFalse();
+    }
+
+    @Test
+    @DisplayName("upgradeEncoding - Should upgrade a hash stored at a lower cost")
+    void testUpgradeEncoding_WithLowerCost_ShouldReturnTrue() {
+        assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("password"))).isTrue();
+    }
+
+    @Test
+    @DisplayName("upgradeEncoding - Should upgrade a hash stored at a higher cost")
+    void testUpgradeEncoding_WithHigherCost_ShouldReturnTrue() {
+        assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("password"))).isTrue();
+    }
+
+    @Test
+    @DisplayName("upgradeEncoding - Should ignore null or non BCrypt values")
+    void testUpgradeEncoding_WithInvalidHash_ShouldReturnFalse() {
+        assertThat(encoder.upgradeEncoding(null)).isFalse();
+        assertThat(encoder.upgradeEncoding("plainText")).isFalse();
+    }
+
+    @Test
+    @DisplayName("calibrate - Should keep the minimum cost when the target is unreachable")
+    void testCalibrate_WithTinyTarget_ShouldReturnMinimum() {
+        assertThat(BCryptCostPasswordEncoder.calibrate(0, 4, 12)).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("calibrate - Should never go above the maximum cost")
+    void testCalibrate_WithHugeTarget_ShouldReturnMaximum() {
+        assertThat(BCryptCostPasswordEncoder.calibrate(Long.MAX_VALUE / 4, 4, 6)).isEqualTo(6);
+    }
+
+    @Test
+    @DisplayName("calibrated - Should still verify the passwords it encodes")
+    void testCalibrated_ShouldMatchEncodedPassword() {
+        BCryptCostPasswordEncoder calibrated = BCryptCostPasswordEncoder.calibrated(1, 4, 5);
+
+        assertThat(calibrated.getStrength()).isBetween(4, 5);
+        assertThat(calibrated.matches("password", calibrated.encode("password"))).isTrue();
+    }
+}
@@ -0,0 +1,139 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import com.openclassrooms.starterjwt.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Unit Tests - LoginThrottle")
+class LoginThrottleTest {
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+    private SimpleMeterRegistry meterRegistry;
+    private LoginThrottle throttle;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // 3 attempts per email, refilled every 10 s; 5 per IP, refilled every second; 60 s max delay
+        throttle = new LoginThrottle(true, 3, 10_000, 5, 1_000, 60_000, 1_000, meterRegistry, clock::get);
+    }
+
+    @Test
+    @DisplayName("acquire - Should allow attempts within the burst")
+    void testAcquire_WithinBurst_ShouldAllow() {
+        assertThatCode(() -> {
+            throttle.acquire("user@yoga.com", "10.0.0.1");
+            throttle.acquire("user@yoga.com", "10.0.0.1");
+            throttle.acquire("user@yoga.com", "10.0.0.1");
+        }).doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("acquire - Should reject with 429 once the email bucket is empty")
+    void testAcquire_BeyondEmailBurst_ShouldReject() {
+        for (int i = 0; i < 3; i++) {
+            throttle.acquire("user@yoga.com", "10.0.0." + i);
+        }
+
+        assertThatThrownBy(() -> throttle.acquire("user@yoga.com", "10.0.0.9"))
+                .isInstanceOf(TooManyRequestsException.class)
+                .extracting("retryAfterSeconds").isEqualTo(10L);
+        assertThat(meterRegistry.get("auth.throttle.rejected").tag("key", "email").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("acquire - Should share the bucket across case and whitespace variants of the email")
+    void testAcquire_ShouldNormalizeEmail() {
+        throttle.acquire("User@Yoga.com", "10.0.0.1");
+        throttle.acquire(" user@yoga.com ", "10.0.0.2");
+        throttle.acquire("USER@YOGA.COM", "10.0.0.3");
+
+        assertThatThrownBy(() -> throttle.acquire("user@yoga.com", "10.0.0.4"))
+                .isInstanceOf(TooManyRequestsException.class);
+    }
+
+    @Test
+    @DisplayName("acquire - Should reject once the IP bucket is empty, whatever the email")
+    void testAcquire_BeyondIpBurst_ShouldReject() {
+        for (int i = 0; i < 5; i++) {
+            throttle.acquire("user" + i + "@yoga.com", "10.0.0.1");
+        }
+
+        assertThatThrownBy(() -> throttle.acquire("other@yoga.com", "10.0.0.1"))
+                .isInstanceOf(TooManyRequestsException.class);
+        assertThat(meterRegistry.get("auth.throttle.rejected").tag("key", "ip").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("acquire - Should increase the delay with every throttled attempt, up to the maximum")
+    void testAcquire_WhileThrottled_ShouldDelayProgressively() {
+        for (int i = 0; i < 3; i++) {
+            throttle.acquire("user@yoga.com", "10.0.0." + i);
+        }
+
+        long first = retryAfter("user@yoga.com");
+        long second = retryAfter("user@yoga.com");
+        for (int i = 0; i < 20; i++) {
+            retryAfter("user@yoga.com");
+        }
+
+        assertThat(second).isGreaterThan(first);
+        assertThat(retryAfter("user@yoga.com")).isEqualTo(60L);
+    }
+
+    @Test
+    @DisplayName("acquire - Should allow again once the bucket has refilled")
+    void testAcquire_AfterRefill_ShouldAllowAgain() {
+        for (int i = 0; i < 3; i++) {
+            throttle.acquire("user@yoga.com", "10.0.0." + i);
+        }
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+        assertThatCode(() -> throttle.acquire("user@yoga.com", "10.0.0.5")).doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("acquire - Should keep memory bounded under a flood of distinct keys")
+    void testAcquire_WithManyDistinctKeys_ShouldStayBounded() {
+        for (int i = 0; i < 5_000; i++) {
+            try {
+                throttle.acquire("user" + i + "@yoga.com", "10.1." + (i / 256) + "." + (i % 256));
+            } catch (TooManyRequestsException ignored) {
+                // not the point of this test
+            }
+        }
+
+        assertThat(throttle.size()).isLessThanOrEqualTo(2_000);
+    }
+
+    @Test
+    @DisplayName("acquire - Should never reject when disabled")
+    void testAcquire_WhenDisabled_ShouldAlwaysAllow() {
+        LoginThrottle disabled = new LoginThrottle(false, 1, 10_000, 1, 10_000, 60_000, 1_000, meterRegistry, clock::get);
+
+        assertThatCode(() -> {
+            for (int i = 0; i < 10; i++) {
+                disabled.acquire("user@yoga.com", "10.0.0.1");
+            }
+        }).doesNotThrowAnyException();
+    }
+
+    private long retryAfter(String email) {
+        try {
+            throttle.acquire(email, "10.0.0.99");
+            return 0;
+        } catch (TooManyRequestsException e) {
+            return e.getRetryAfterSeconds();
+        }
+    }
+}
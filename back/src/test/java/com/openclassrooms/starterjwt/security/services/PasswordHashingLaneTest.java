@@ -0,0 +1,87 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import com.openclassrooms.starterjwt.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Unit Tests - PasswordHashingLane")
+class PasswordHashingLaneTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private PasswordHashingLane lane;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        lane = new PasswordHashingLane(1, 1, 2, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        lane.shutdown();
+    }
+
+    @Test
+    @DisplayName("run - Should return the result of the task and record its latency")
+    void testRun_ShouldReturnResult() {
+        String result = lane.run("login", () -> "hashed");
+
+        assertThat(result).isEqualTo("hashed");
+        assertThat(meterRegistry.get("auth.hashing.latency").tag("operation", "login").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("run - Should rethrow the exception raised by the task")
+    void testRun_ShouldRethrowTaskException() {
+        assertThatThrownBy(() -> lane.run("login", () -> {
+            throw new BadCredentialsException("Bad credentials");
+        })).isInstanceOf(BadCredentialsException.class);
+    }
+
+    @Test
+    @DisplayName("run - Should fail fast with ServiceUnavailableException when the queue is full")
+    void testRun_WhenQueueIsFull_ShouldRejectImmediately() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // One task running, one waiting in the queue
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> lane.run("login", () -> {
+            started.countDown();
+            await(release);
+            return "first";
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> lane.run("login", () -> "second"));
+        while (meterRegistry.get("auth.hashing.queue.depth").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        assertThatThrownBy(() -> lane.run("login", () -> "third"))
+                .isInstanceOf(ServiceUnavailableException.class)
+                .extracting("retryAfterSeconds").isEqualTo(2L);
+        assertThat(meterRegistry.get("auth.hashing.rejected").counter().count()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("first");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("second");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.security.core.GrantedAuthority;
 import java.util.Collection;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @DisplayName("Unit Tests - UserDetailsImpl")
 class UserDetailsImplTest {
@@ -80,12 +81,34 @@ class UserDetailsImplTest {
     // ==================== TESTS des Méthodes UserDetails ====================
 
     @Test
-    @DisplayName("getAuthorities - Should return empty collection")
-    void testGetAuthorities_ShouldReturnEmptyCollection() {
+    @DisplayName("getAuthorities - Should return ROLE_USER for a regular user")
+    void testGetAuthorities_ShouldReturnUserRole() {
         Collection<? extends GrantedAuthority> authorities = userDetails.getAuthorities();
-        
-        assertThat(authorities).isNotNull();
-        assertThat(authorities).isEmpty();
+
+        assertThat(authorities).extracting(GrantedAuthority::getAuthority).containsExactly("ROLE_USER");
+    }
+
+    @Test
+    @DisplayName("getAuthorities - Should return ROLE_USER and ROLE_ADMIN for an admin")
+    void testGetAuthorities_ShouldReturnAdminRole() {
+        UserDetailsImpl adminUser = UserDetailsImpl.builder()
+                .id(2L)
+                .username("admin@yoga.com")
+                .admin(true)
+                .build();
+
+        assertThat(adminUser.getRole()).isEqualTo(Role.ADMIN);
+        assertThat(adminUser.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactlyInAnyOrder("ROLE_USER", "ROLE_ADMIN");
+    }
+
+    @Test
+    @DisplayName("getAuthorities - Should return the same immutable set on every call")
+    void testGetAuthorities_ShouldBeSharedAndImmutable() {
+        Collection<? extends GrantedAuthority> authorities = userDetails.getAuthorities();
+
+        assertThat(userDetails.getAuthorities()).isSameAs(authorities);
+        assertThatThrownBy(() -> authorities.clear()).isInstanceOf(UnsupportedOperationException.class);
     }
 
     @Test
@@ -231,6 +254,7 @@ class UserDetailsImplTest {
                 "Constructor",
                 "Test",
                 false,
+                0,
                 "constructorPassword"
         );
 
@@ -239,6 +263,7 @@ class UserDetailsImplTest {
         assertThat(user.getFirstName()).isEqualTo("Constructor");
         assertThat(user.getLastName()).isEqualTo("Test");
         assertThat(user.getAdmin()).isFalse();
+        assertThat(user.getTokenVersion()).isZero();
         assertThat(user.getPassword()).isEqualTo("constructorPassword");
     }
 
@@ -262,7 +287,7 @@ class UserDetailsImplTest {
         assertThat(authenticatedUser.isAccountNonExpired()).isTrue();
         assertThat(authenticatedUser.isAccountNonLocked()).isTrue();
         assertThat(authenticatedUser.isCredentialsNonExpired()).isTrue();
-        assertThat(authenticatedUser.getAuthorities()).isEmpty();
+        assertThat(authenticatedUser.getAuthorities()).isSameAs(Role.USER.getAuthorities());
     }
 
     @Test
@@ -112,6 +112,8 @@ class UserDetailsServiceImplTest {
         assertThat(userDetailsImpl.getFirstName()).isEqualTo("Admin");
         assertThat(userDetailsImpl.getLastName()).isEqualTo("User");
         assertThat(userDetailsImpl.getPassword()).isEqualTo("adminPassword");
+        assertThat(userDetailsImpl.getAdmin()).isTrue();
+        assertThat(userDetailsImpl.getTokenVersion()).isZero();
     }
 
     @Test
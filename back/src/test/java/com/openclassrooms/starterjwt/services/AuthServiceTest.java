@@ -1,12 +1,19 @@
 package com.openclassrooms.starterjwt.services;
 
+import com.openclassrooms.starterjwt.exception.ServiceUnavailableException;
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.payload.request.LoginRequest;
 import com.openclassrooms.starterjwt.payload.request.SignupRequest;
 import com.openclassrooms.starterjwt.payload.response.JwtResponse;
 import com.openclassrooms.starterjwt.repository.UserRepository;
 import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.security.jwt.JwtVerification;
+import com.openclassrooms.starterjwt.security.jwt.TokenRevocationList;
+import com.openclassrooms.starterjwt.security.services.PasswordHashingLane;
 import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -14,18 +21,23 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
-import java.util.Optional;
+import java.util.Date;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -49,6 +61,18 @@ class AuthServiceTest {
     @Mock
     private Authentication authentication;
 
+    @Mock
+    private RefreshTokenService refreshTokenService;
+
+    @Mock
+    private TokenRevocationList tokenRevocationList;
+
+    @Mock
+    private RegisteredEmails registeredEmails;
+
+    @Spy
+    private PasswordHashingLane passwordHashingLane = new PasswordHashingLane(1, 4, 1, new SimpleMeterRegistry());
+
     // ==================== SERVICE TESTÉ ====================
     
     @InjectMocks
@@ -63,6 +87,10 @@ class AuthServiceTest {
 
     @BeforeEach
     void setUp() {
+        // Filtre pas encore construit : chaque vérification d'email passe par la base
+        lenient().when(registeredEmails.isTaken(anyString()))
+                .thenAnswer(invocation -> userRepository.existsByNormalizedEmail(invocation.getArgument(0)));
+
         // Créer un utilisateur de test
         testUser = User.builder()
                 .id(1L)
@@ -110,8 +138,6 @@ class AuthServiceTest {
                 .thenReturn(userDetails);
         when(jwtUtils.generateJwtToken(authentication))
                 .thenReturn(expectedToken);
-        when(userRepository.findByEmail("yoga@test.com"))
-                .thenReturn(Optional.of(testUser));
 
         // WHEN
         JwtResponse response = authService.authenticateUser(loginRequest);
@@ -130,7 +156,7 @@ class AuthServiceTest {
         verify(authenticationManager, times(1))
                 .authenticate(any(UsernamePasswordAuthenticationToken.class));
         verify(jwtUtils, times(1)).generateJwtToken(authentication);
-        verify(userRepository, times(1)).findByEmail("yoga@test.com");
+        verify(passwordHashingLane, times(1)).run(eq("login"), any());
     }
 
     @Test
@@ -144,7 +170,6 @@ class AuthServiceTest {
                 .thenReturn(authentication);
         when(authentication.getPrincipal()).thenReturn(userDetails);
         when(jwtUtils.generateJwtToken(authentication)).thenReturn("token");
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(testUser));
 
         // WHEN
         authService.authenticateUser(loginRequest);
@@ -160,15 +185,6 @@ class AuthServiceTest {
     @DisplayName("authenticateUser - Should return admin=true when user is admin")
     void testAuthenticateUser_WithAdminUser_ShouldReturnAdminTrue() {
         // GIVEN
-        User adminUser = User.builder()
-                .id(2L)
-                .email("admin@yoga.com")
-                .firstName("Admin")
-                .lastName("User")
-                .password("encodedPassword")
-                .admin(true)  // Admin = true
-                .build();
-
         UserDetailsImpl adminDetails = UserDetailsImpl.builder()
                 .id(2L)
                 .username("admin@yoga.com")
@@ -181,7 +197,6 @@ class AuthServiceTest {
         when(authenticationManager.authenticate(any())).thenReturn(authentication);
         when(authentication.getPrincipal()).thenReturn(adminDetails);
         when(jwtUtils.generateJwtToken(authentication)).thenReturn("admin-token");
-        when(userRepository.findByEmail("admin@yoga.com")).thenReturn(Optional.of(adminUser));
 
         LoginRequest adminLoginRequest = new LoginRequest();
         adminLoginRequest.setEmail("admin@yoga.com");
@@ -196,19 +211,79 @@ class AuthServiceTest {
     }
 
     @Test
-    @DisplayName("authenticateUser - Should throw RuntimeException when user not found in database")
-    void testAuthenticateUser_WhenUserNotFoundInDb_ShouldThrowException() {
+    @DisplayName("authenticateUser - Should take the admin flag from the principal without reloading the user")
+    void testAuthenticateUser_ShouldNotReloadUserAfterAuthentication() {
         // GIVEN
         when(authenticationManager.authenticate(any())).thenReturn(authentication);
         when(authentication.getPrincipal()).thenReturn(userDetails);
-        when(userRepository.findByEmail("yoga@test.com")).thenReturn(Optional.empty());
+        when(jwtUtils.generateJwtToken(authentication)).thenReturn("token");
+
+        // WHEN
+        authService.authenticateUser(loginRequest);
+
+        // THEN
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    @DisplayName("authenticateUser - Should fail fast with ServiceUnavailableException when the hashing lane is full")
+    void testAuthenticateUser_WhenHashingLaneIsFull_ShouldThrowServiceUnavailable() {
+        // GIVEN
+        doThrow(new ServiceUnavailableException(1)).when(passwordHashingLane).run(eq("login"), any());
 
         // WHEN & THEN
         assertThatThrownBy(() -> authService.authenticateUser(loginRequest))
-                .isInstanceOf(RuntimeException.class)
-                .hasMessage("User not found after authentication");
+                .isInstanceOf(ServiceUnavailableException.class);
 
-        verify(userRepository, times(1)).findByEmail("yoga@test.com");
+        verifyNoInteractions(authenticationManager, jwtUtils);
+    }
+
+    @Test
+    @DisplayName("authenticateUser - Should propagate BadCredentialsException raised on the hashing lane")
+    void testAuthenticateUser_WithBadCredentials_ShouldPropagateException() {
+        // GIVEN
+        when(authenticationManager.authenticate(any())).thenThrow(new BadCredentialsException("Bad credentials"));
+
+        // WHEN & THEN
+        assertThatThrownBy(() -> authService.authenticateUser(loginRequest))
+                .isInstanceOf(BadCredentialsException.class);
+
+        verifyNoInteractions(jwtUtils);
+    }
+
+    @Test
+    @DisplayName("authenticateUser - Should rehash in the background a password stored at another cost")
+    void testAuthenticateUser_WithOutdatedHash_ShouldRehashAsynchronously() {
+        // GIVEN
+        when(authenticationManager.authenticate(any())).thenReturn(authentication);
+        when(authentication.getPrincipal()).thenReturn(userDetails);
+        when(jwtUtils.generateJwtToken(authentication)).thenReturn("token");
+        when(passwordEncoder.upgradeEncoding("encodedPassword123")).thenReturn(true);
+        when(passwordEncoder.encode("password123")).thenReturn("rehashedPassword");
+
+        // WHEN
+        authService.authenticateUser(loginRequest);
+
+        // THEN
+        verify(passwordHashingLane, times(1)).offer(eq("rehash"), any());
+        verify(userRepository, timeout(1000)).updatePassword(1L, "encodedPassword123", "rehashedPassword");
+    }
+
+    @Test
+    @DisplayName("authenticateUser - Should not rehash a password stored at the current cost")
+    void testAuthenticateUser_WithCurrentHash_ShouldNotRehash() {
+        // GIVEN
+        when(authenticationManager.authenticate(any())).thenReturn(authentication);
+        when(authentication.getPrincipal()).thenReturn(userDetails);
+        when(jwtUtils.generateJwtToken(authentication)).thenReturn("token");
+        when(passwordEncoder.upgradeEncoding("encodedPassword123")).thenReturn(false);
+
+        // WHEN
+        authService.authenticateUser(loginRequest);
+
+        // THEN
+        verify(passwordHashingLane, never()).offer(anyString(), any());
+        verify(passwordEncoder, never()).encode(anyString());
     }
 
     @Test
@@ -218,7 +293,6 @@ class AuthServiceTest {
         when(authenticationManager.authenticate(any())).thenReturn(authentication);
         when(authentication.getPrincipal()).thenReturn(userDetails);
         when(jwtUtils.generateJwtToken(authentication)).thenReturn("generated-jwt-token");
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(testUser));
 
         // WHEN
         JwtResponse response = authService.authenticateUser(loginRequest);
@@ -228,13 +302,92 @@ class AuthServiceTest {
         verify(jwtUtils, times(1)).generateJwtToken(authentication);
     }
 
+    // ==================== TESTS refresh / logout ====================
+
+    @Test
+    @DisplayName("authenticateUser - Should return a refresh token with the access token")
+    void testAuthenticateUser_ShouldIssueRefreshToken() {
+        // GIVEN
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+                .thenReturn(authentication);
+        when(authentication.getPrincipal()).thenReturn(userDetails);
+        when(jwtUtils.generateJwtToken(authentication)).thenReturn("token");
+        when(refreshTokenService.issue(1L)).thenReturn("refresh-token");
+
+        // WHEN
+        JwtResponse response = authService.authenticateUser(loginRequest);
+
+        // THEN
+        assertThat(response.getRefreshToken()).isEqualTo("refresh-token");
+    }
+
+    @Test
+    @DisplayName("refresh - Should consume the refresh token and issue a new pair")
+    void testRefresh_ShouldRotateTokens() {
+        // GIVEN
+        when(refreshTokenService.consume("old-refresh")).thenReturn(testUser);
+        when(jwtUtils.generateJwtToken(any(UserDetailsImpl.class))).thenReturn("new-token");
+        when(refreshTokenService.issue(1L)).thenReturn("new-refresh");
+
+        // WHEN
+        JwtResponse response = authService.refresh("old-refresh");
+
+        // THEN
+        assertThat(response.getToken()).isEqualTo("new-token");
+        assertThat(response.getRefreshToken()).isEqualTo("new-refresh");
+        assertThat(response.getUsername()).isEqualTo("yoga@test.com");
+        verify(refreshTokenService).consume("old-refresh");
+        verifyNoInteractions(authenticationManager);
+    }
+
+    @Test
+    @DisplayName("refresh - Should propagate BadCredentialsException for an unusable refresh token")
+    void testRefresh_WithUnknownToken_ShouldThrow() {
+        // GIVEN
+        when(refreshTokenService.consume("unknown")).thenThrow(new BadCredentialsException("Unknown refresh token"));
+
+        // WHEN & THEN
+        assertThatThrownBy(() -> authService.refresh("unknown"))
+                .isInstanceOf(BadCredentialsException.class);
+        verify(refreshTokenService, never()).issue(anyLong());
+    }
+
+    @Test
+    @DisplayName("logout - Should revoke the refresh token and the access token until it expires")
+    void testLogout_ShouldRevokeBothTokens() {
+        // GIVEN
+        Date expiration = new Date((System.currentTimeMillis() / 1000 + 60) * 1000);
+        Claims claims = Jwts.claims().id("jti-1").subject("yoga@test.com").expiration(expiration).build();
+        when(jwtUtils.verify("access-token")).thenReturn(JwtVerification.valid(claims));
+
+        // WHEN
+        authService.logout("access-token", "refresh-token");
+
+        // THEN
+        verify(refreshTokenService).revoke("refresh-token");
+        verify(tokenRevocationList).revokeToken("jti-1", expiration.toInstant());
+    }
+
+    @Test
+    @DisplayName("logout - Should not revoke anything for an invalid access token")
+    void testLogout_WithInvalidAccessToken_ShouldOnlyRevokeRefreshToken() {
+        // GIVEN
+        when(jwtUtils.verify("bad-token")).thenReturn(JwtVerification.failed(JwtVerification.Failure.MALFORMED));
+
+        // WHEN
+        authService.logout("bad-token", null);
+
+        // THEN
+        verifyNoInteractions(tokenRevocationList, refreshTokenService);
+    }
+
     // ==================== TESTS registerUser ====================
 
     @Test
     @DisplayName("registerUser - Should create new user successfully")
     void testRegisterUser_WithValidData_ShouldCreateUser() {
         // GIVEN
-        when(userRepository.existsByEmail("newuser@yoga.com")).thenReturn(false);
+        when(userRepository.existsByNormalizedEmail("newuser@yoga.com")).thenReturn(false);
         when(passwordEncoder.encode("password123")).thenReturn("encodedPassword123");
         when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
             User savedUser = invocation.getArgument(0);
@@ -246,7 +399,7 @@ class AuthServiceTest {
         authService.registerUser(signupRequest);
 
         // THEN
-        verify(userRepository, times(1)).existsByEmail("newuser@yoga.com");
+        verify(userRepository, times(1)).existsByNormalizedEmail("newuser@yoga.com");
         verify(passwordEncoder, times(1)).encode("password123");
         verify(userRepository, times(1)).save(any(User.class));
     }
@@ -257,7 +410,7 @@ class AuthServiceTest {
         // GIVEN
         ArgumentCaptor<User> userCaptor = ArgumentCaptor.forClass(User.class);
         
-        when(userRepository.existsByEmail(anyString())).thenReturn(false);
+        when(userRepository.existsByNormalizedEmail(anyString())).thenReturn(false);
         when(passwordEncoder.encode("password123")).thenReturn("super-encoded-password");
         when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -281,7 +434,7 @@ class AuthServiceTest {
         // GIVEN
         ArgumentCaptor<User> userCaptor = ArgumentCaptor.forClass(User.class);
         
-        when(userRepository.existsByEmail(anyString())).thenReturn(false);
+        when(userRepository.existsByNormalizedEmail(anyString())).thenReturn(false);
         when(passwordEncoder.encode(anyString())).thenReturn("encoded");
         when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -297,23 +450,53 @@ class AuthServiceTest {
     @DisplayName("registerUser - Should throw IllegalArgumentException when email already exists")
     void testRegisterUser_WithExistingEmail_ShouldThrowException() {
         // GIVEN
-        when(userRepository.existsByEmail("newuser@yoga.com")).thenReturn(true);
+        when(userRepository.existsByNormalizedEmail("newuser@yoga.com")).thenReturn(true);
 
         // WHEN & THEN
         assertThatThrownBy(() -> authService.registerUser(signupRequest))
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessage("This Email is already taken");
 
-        verify(userRepository, times(1)).existsByEmail("newuser@yoga.com");
+        verify(userRepository, times(1)).existsByNormalizedEmail("newuser@yoga.com");
         verify(userRepository, never()).save(any(User.class));  // save() ne doit PAS être appelé
         verify(passwordEncoder, never()).encode(anyString());   // encode() ne doit PAS être appelé
     }
 
+    @Test
+    @DisplayName("registerUser - Should add the email of the new user to the filter")
+    void testRegisterUser_ShouldAddEmailToFilter() {
+        // GIVEN
+        when(registeredEmails.isTaken("newuser@yoga.com")).thenReturn(false);
+        when(passwordEncoder.encode(anyString())).thenReturn("encoded");
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // WHEN
+        authService.registerUser(signupRequest);
+
+        // THEN
+        verify(registeredEmails).added("newuser@yoga.com");
+    }
+
+    @Test
+    @DisplayName("registerUser - Should reject an email the filter missed through the unique constraint")
+    void testRegisterUser_WithEmailMissedByFilter_ShouldThrowException() {
+        // GIVEN - Inscrit par une autre instance depuis la construction du filtre
+        when(registeredEmails.isTaken("newuser@yoga.com")).thenReturn(false);
+        when(passwordEncoder.encode(anyString())).thenReturn("encoded");
+        when(userRepository.save(any(User.class))).thenThrow(new DataIntegrityViolationException("unique (email)"));
+
+        // WHEN & THEN
+        assertThatThrownBy(() -> authService.registerUser(signupRequest))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("This Email is already taken");
+        verify(registeredEmails, never()).added(anyString());
+    }
+
     @Test
     @DisplayName("registerUser - Should check email existence before creating user")
     void testRegisterUser_ShouldCheckEmailExistenceFirst() {
         // GIVEN
-        when(userRepository.existsByEmail(anyString())).thenReturn(false);
+        when(userRepository.existsByNormalizedEmail(anyString())).thenReturn(false);
         when(passwordEncoder.encode(anyString())).thenReturn("encoded");
         when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -321,9 +504,9 @@ class AuthServiceTest {
         authService.registerUser(signupRequest);
 
         // THEN
-        // Vérifier l'ordre d'exécution : existsByEmail AVANT save
+        // Vérifier l'ordre d'exécution : existsByNormalizedEmail AVANT save
         var inOrder = inOrder(userRepository, passwordEncoder);
-        inOrder.verify(userRepository).existsByEmail("newuser@yoga.com");
+        inOrder.verify(userRepository).existsByNormalizedEmail("newuser@yoga.com");
         inOrder.verify(passwordEncoder).encode("password123");
         inOrder.verify(userRepository).save(any(User.class));
     }
@@ -340,7 +523,7 @@ class AuthServiceTest {
 
         ArgumentCaptor<User> userCaptor = ArgumentCaptor.forClass(User.class);
         
-        when(userRepository.existsByEmail(anyString())).thenReturn(false);
+        when(userRepository.existsByNormalizedEmail(anyString())).thenReturn(false);
         when(passwordEncoder.encode(anyString())).thenReturn("encoded");
         when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -360,7 +543,7 @@ class AuthServiceTest {
     @DisplayName("registerUser - Should call passwordEncoder exactly once")
     void testRegisterUser_ShouldEncodePasswordOnce() {
         // GIVEN
-        when(userRepository.existsByEmail(anyString())).thenReturn(false);
+        when(userRepository.existsByNormalizedEmail(anyString())).thenReturn(false);
         when(passwordEncoder.encode(anyString())).thenReturn("encoded-password");
         when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -0,0 +1,120 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Unit Tests - RegisteredEmails")
+class RegisteredEmailsTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private RegisteredEmails registeredEmails;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        registeredEmails = new RegisteredEmails(userRepository, meterRegistry, 1000, 0.01);
+    }
+
+    private void build(String... emails) {
+        when(userRepository.count()).thenReturn((long) emails.length);
+        when(userRepository.streamNormalizedEmails()).thenReturn(Stream.of(emails));
+        registeredEmails.rebuild();
+    }
+
+    @Test
+    @DisplayName("isTaken - Should query the database until the filter is built")
+    void testIsTaken_BeforeBuild_ShouldQueryDatabase() {
+        // GIVEN
+        when(userRepository.existsByNormalizedEmail("yoga@test.com")).thenReturn(true);
+
+        // WHEN & THEN
+        assertThat(registeredEmails.isTaken("yoga@test.com")).isTrue();
+        verify(userRepository).existsByNormalizedEmail("yoga@test.com");
+    }
+
+    @Test
+    @DisplayName("isTaken - Should answer an unknown email without querying the database")
+    void testIsTaken_WithUnknownEmail_ShouldSkipQuery() {
+        // GIVEN
+        build("yoga@test.com", "admin@yoga.com");
+
+        // WHEN & THEN
+        assertThat(registeredEmails.isTaken("newuser@yoga.com")).isFalse();
+        verify(userRepository, never()).existsByNormalizedEmail(anyString());
+        assertThat(meterRegistry.get("registration.email.filter.checks").tag("result", "negative").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("isTaken - Should confirm a registered email, whatever its case, with the database")
+    void testIsTaken_WithRegisteredEmail_ShouldQueryDatabase() {
+        // GIVEN
+        build("yoga@test.com");
+        when(userRepository.existsByNormalizedEmail("yoga@test.com")).thenReturn(true);
+
+        // WHEN & THEN
+        assertThat(registeredEmails.isTaken(" Yoga@Test.COM")).isTrue();
+        assertThat(meterRegistry.get("registration.email.filter.false.positives").counter().count()).isZero();
+    }
+
+    @Test
+    @DisplayName("added - Should make a new email a positive of the filter")
+    void testAdded_ShouldMakeEmailPositive() {
+        // GIVEN
+        build();
+        registeredEmails.added("newuser@yoga.com");
+        when(userRepository.existsByNormalizedEmail("newuser@yoga.com")).thenReturn(true);
+
+        // WHEN & THEN
+        assertThat(registeredEmails.isTaken("newuser@yoga.com")).isTrue();
+    }
+
+    @Test
+    @DisplayName("deleted - Should count a deleted email as a false positive until the next rebuild")
+    void testDeleted_ShouldCountFalsePositiveUntilRebuild() {
+        // GIVEN
+        build("gone@yoga.com");
+        registeredEmails.deleted();
+        when(userRepository.existsByNormalizedEmail("gone@yoga.com")).thenReturn(false);
+
+        // WHEN
+        boolean takenBeforeRebuild = registeredEmails.isTaken("gone@yoga.com");
+        build();
+
+        // THEN
+        assertThat(takenBeforeRebuild).isFalse();
+        assertThat(meterRegistry.get("registration.email.filter.false.positives").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("registration.email.filter.deleted").gauge().value()).isZero();
+        assertThat(registeredEmails.isTaken("gone@yoga.com")).isFalse();
+        verify(userRepository, times(1)).existsByNormalizedEmail("gone@yoga.com");
+    }
+
+    @Test
+    @DisplayName("rebuild - Should publish the size and the expected false positive rate of the filter")
+    void testRebuild_ShouldPublishFilterMetrics() {
+        // WHEN
+        build("yoga@test.com", "admin@yoga.com");
+
+        // THEN : dimensionné pour 1000 emails à 1%
+        assertThat(meterRegistry.get("registration.email.filter.bytes").gauge().value()).isBetween(1_000.0, 1_300.0);
+        assertThat(meterRegistry.get("registration.email.filter.expected.false.positive.rate").gauge().value())
+                .isLessThan(0.01);
+    }
+}
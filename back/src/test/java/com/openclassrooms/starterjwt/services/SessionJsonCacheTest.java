@@ -0,0 +1,176 @@
+package com.openclassrooms.starterjwt.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Unit Tests - SessionJsonCache")
+class SessionJsonCacheTest {
+
+    private static final String ETAG = "\"0-1\"";
+
+    private static final SessionJsonCache.PageKey FIRST_PAGE =
+            new SessionJsonCache.PageKey(new SessionFilter(null, null, null), null, 2);
+
+    private SimpleMeterRegistry meterRegistry;
+    private SessionJsonCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new SessionJsonCache(meterRegistry, true, 1024);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    @DisplayName("getSession - Should serialize a session only once while it is cached")
+    void testGetSession_ShouldServeRepeatedReadsFromCache() {
+        SessionJsonCache.SessionJson first = cache.getSession(1L, json("{\"id\":1}"));
+        SessionJsonCache.SessionJson second = cache.getSession(1L, json("{\"id\":1}"));
+
+        assertThat(text(first.json().get())).isEqualTo("{\"id\":1}");
+        assertThat(text(second.json().get())).isEqualTo("{\"id\":1}");
+        assertThat(second.etag()).isEqualTo(ETAG);
+        assertThat(second.json().get().isDirect()).isTrue();
+        assertThat(loads).hasValue(1);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("session.json.cache.bytes").gauge().value()).isEqualTo(8);
+    }
+
+    @Test
+    @DisplayName("invalidateSession - Should drop the session and the pages showing it only")
+    void testInvalidateSession_ShouldDropPagesShowingTheSession() {
+        SessionJsonCache.PageKey secondPage = new SessionJsonCache.PageKey(new SessionFilter(null, null, null), "next", 2);
+        cache.getSession(1L, json("{\"id\":1}"));
+        cache.getPage(FIRST_PAGE, page("[1,2]", 1L, 2L));
+        cache.getPage(secondPage, page("[3]", 3L));
+
+        cache.invalidateSession(2L);
+        cache.getSession(1L, json("{\"id\":1}"));
+        cache.getPage(secondPage, page("[3]", 3L));
+        SessionJsonCache.Page reloaded = cache.getPage(FIRST_PAGE, page("[1,2,]", 1L, 2L));
+
+        assertThat(text(reloaded.json())).isEqualTo("[1,2,]");
+        assertThat(loads).hasValue(4);
+        assertThat(meterRegistry.get("session.json.cache.invalidations").tag("kind", "session").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("invalidateListing - Should drop every page")
+    void testInvalidateListing_ShouldDropAllPages() {
+        cache.getSession(1L, json("{\"id\":1}"));
+        cache.getPage(FIRST_PAGE, page("[1]", 1L));
+
+        cache.invalidateListing(null);
+        cache.getSession(1L, json("{\"id\":1}"));
+        cache.getPage(FIRST_PAGE, page("[1]", 1L));
+
+        assertThat(loads).hasValue(3);
+        assertThat(meterRegistry.get("session.json.cache.invalidations").tag("kind", "page").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("getPage - Should not keep a value read while a mutation invalidated")
+    void testGetPage_WithConcurrentInvalidation_ShouldNotKeepStaleValue() {
+        // GIVEN : la mutation tombe pendant la lecture de la page
+        cache.getPage(FIRST_PAGE, () -> {
+            loads.incrementAndGet();
+            cache.invalidateListing(1L);
+            return new SessionJsonCache.SerializedPage(bytes("[1]"), null, new long[]{1L});
+        });
+
+        // WHEN
+        cache.getPage(FIRST_PAGE, page("[1]", 1L));
+
+        // THEN
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("invalidateSession - Should drop the session again once the transaction commits")
+    void testInvalidateSession_InTransaction_ShouldDropAgainAfterCommit() {
+        // GIVEN : la mutation invalide dans sa transaction, puis une lecture relit l'ancienne ligne avant le commit
+        cache.getSession(1L, json("{\"id\":1}"));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.invalidateSession(1L);
+            cache.getSession(1L, json("{\"id\":1}"));
+
+            // WHEN
+            TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        cache.getSession(1L, json("{\"id\":1,\"users\":[2]}"));
+
+        // THEN
+        assertThat(loads).hasValue(3);
+        assertThat(meterRegistry.get("session.json.cache.invalidations").tag("kind", "session").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("getSession - Should call the loader every time when disabled")
+    void testGetSession_WhenDisabled_ShouldAlwaysLoad() {
+        SessionJsonCache disabled = new SessionJsonCache(meterRegistry, false, 1024);
+
+        disabled.getSession(1L, json("{\"id\":1}"));
+        disabled.getSession(1L, json("{\"id\":1}"));
+
+        assertThat(loads).hasValue(2);
+        assertThat(disabled.estimatedSize()).isZero();
+    }
+
+    @Test
+    @DisplayName("getSession - Should not serialize the session until asked for the JSON when disabled")
+    void testGetSession_WhenDisabled_ShouldSerializeLazily() {
+        SessionJsonCache disabled = new SessionJsonCache(meterRegistry, false, 1024);
+        AtomicInteger serializations = new AtomicInteger();
+
+        SessionJsonCache.SessionJson session = disabled.getSession(1L, () -> new SessionJsonCache.LoadedSession(
+                ETAG, () -> {
+                    serializations.incrementAndGet();
+                    return bytes("{\"id\":1}");
+                }));
+
+        assertThat(session.etag()).isEqualTo(ETAG);
+        assertThat(serializations).hasValue(0);
+        assertThat(text(session.json().get())).isEqualTo("{\"id\":1}");
+        assertThat(serializations).hasValue(1);
+    }
+
+    private Supplier<SessionJsonCache.LoadedSession> json(String json) {
+        return () -> {
+            loads.incrementAndGet();
+            return new SessionJsonCache.LoadedSession(ETAG, () -> bytes(json));
+        };
+    }
+
+    private Supplier<SessionJsonCache.SerializedPage> page(String json, long... sessionIds) {
+        return () -> {
+            loads.incrementAndGet();
+            return new SessionJsonCache.SerializedPage(bytes(json), null, sessionIds);
+        };
+    }
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(ByteBuffer json) {
+        return StandardCharsets.UTF_8.decode(json).toString();
+    }
+}
@@ -2,11 +2,15 @@ package com.openclassrooms.starterjwt.services;
 
 import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.exception.PreconditionFailedException;
+import com.openclassrooms.starterjwt.models.Participation;
 import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.ParticipationRepository;
+import com.openclassrooms.starterjwt.repository.SessionPatch;
 import com.openclassrooms.starterjwt.repository.SessionRepository;
-import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.repository.SessionRow;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -15,9 +19,12 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.jpa.domain.Specification;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -35,7 +42,10 @@ class SessionServiceTest {
     private SessionRepository sessionRepository;
 
     @Mock
-    private UserRepository userRepository;
+    private ParticipationRepository participationRepository;
+
+    @Mock
+    private SessionJsonCache sessionJsonCache;
 
     // ==================== SERVICE TESTÉ ====================
     
@@ -87,14 +97,14 @@ class SessionServiceTest {
                 .admin(false)
                 .build();
 
-        // Créer une session avec une liste de participants modifiable
+        // Créer une session avec un ensemble de participants modifiable
         testSession = Session.builder()
                 .id(1L)
                 .name("Yoga Session")
                 .date(new Date())
                 .description("A relaxing yoga session")
                 .teacher(teacher)
-                .users(new ArrayList<>(Arrays.asList(user1, user2)))
+                .users(new HashSet<>(Arrays.asList(user1, user2)))
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
                 .build();
@@ -111,7 +121,7 @@ class SessionServiceTest {
                 .date(new Date())
                 .description("Description")
                 .teacher(teacher)
-                .users(new ArrayList<>())
+                .users(new HashSet<>())
                 .build();
 
         when(sessionRepository.save(newSession)).thenAnswer(invocation -> {
@@ -141,7 +151,7 @@ class SessionServiceTest {
                 .date(specificDate)
                 .description("Specific Description")
                 .teacher(teacher)
-                .users(new ArrayList<>(List.of(user1)))
+                .users(new HashSet<>(List.of(user1)))
                 .build();
 
         when(sessionRepository.save(any(Session.class))).thenAnswer(invocation -> invocation.getArgument(0));
@@ -164,15 +174,14 @@ class SessionServiceTest {
     void testDelete_WithValidId_ShouldDeleteSession() {
         // GIVEN
         Long sessionId = 1L;
-        when(sessionRepository.existsById(sessionId)).thenReturn(true);
-        doNothing().when(sessionRepository).deleteById(sessionId);
+        when(sessionRepository.deleteSession(sessionId)).thenReturn(1);
 
         // WHEN
-        sessionService.delete(sessionId);
+        sessionService.delete(sessionId, null);
 
         // THEN
-        verify(sessionRepository, times(1)).existsById(sessionId);
-        verify(sessionRepository, times(1)).deleteById(sessionId);
+        verify(sessionRepository, times(1)).deleteSession(sessionId);
+        verify(sessionJsonCache).invalidateListing(sessionId);
     }
 
     @Test
@@ -180,29 +189,27 @@ class SessionServiceTest {
     void testDelete_WithInvalidId_ShouldThrowNotFoundException() {
         // GIVEN
         Long nonExistentId = 999L;
-        when(sessionRepository.existsById(nonExistentId)).thenReturn(false);
+        when(sessionRepository.deleteSession(nonExistentId)).thenReturn(0);
 
         // WHEN & THEN
-        assertThatThrownBy(() -> sessionService.delete(nonExistentId))
+        assertThatThrownBy(() -> sessionService.delete(nonExistentId, null))
                 .isInstanceOf(NotFoundException.class);
 
-        verify(sessionRepository, times(1)).existsById(nonExistentId);
-        verify(sessionRepository, never()).deleteById(anyLong());
+        verifyNoInteractions(sessionJsonCache);
     }
 
     @Test
-    @DisplayName("delete - Should check existence before deleting")
-    void testDelete_ShouldCheckExistenceFirst() {
+    @DisplayName("delete - Should delete in a single statement, without checking existence first")
+    void testDelete_ShouldNotCheckExistenceFirst() {
         // GIVEN
-        when(sessionRepository.existsById(anyLong())).thenReturn(true);
+        when(sessionRepository.deleteSession(1L)).thenReturn(1);
 
         // WHEN
-        sessionService.delete(1L);
+        sessionService.delete(1L, null);
 
         // THEN
-        var inOrder = inOrder(sessionRepository);
-        inOrder.verify(sessionRepository).existsById(1L);
-        inOrder.verify(sessionRepository).deleteById(1L);
+        verify(sessionRepository).deleteSession(1L);
+        verifyNoMoreInteractions(sessionRepository);
     }
 
     // ==================== TESTS findAll() ====================
@@ -217,7 +224,7 @@ class SessionServiceTest {
                 .date(new Date())
                 .description("Description 2")
                 .teacher(teacher)
-                .users(new ArrayList<>())
+                .users(new HashSet<>())
                 .build();
 
         List<Session> sessions = Arrays.asList(testSession, session2);
@@ -246,6 +253,104 @@ class SessionServiceTest {
         assertThat(found).isEmpty();
     }
 
+    // ==================== TESTS findPage() ====================
+
+    @Test
+    @DisplayName("findPage - Should return next cursor when more sessions exist")
+    void testFindPage_WithMoreSessions_ShouldReturnNextCursor() {
+        // GIVEN : la requête lit une ligne de plus que la taille de page
+        Session session2 = Session.builder().id(2L).name("Session 2").date(new Date(2000L)).build();
+        Session session3 = Session.builder().id(3L).name("Session 3").date(new Date(3000L)).build();
+        when(sessionRepository.findBy(any(Specification.class), any())).thenReturn(Arrays.asList(testSession, session2, session3));
+
+        // WHEN
+        SessionPage page = sessionService.findPage(new SessionFilter(null, null, null), null, 2);
+
+        // THEN
+        assertThat(page.sessions()).containsExactly(testSession, session2);
+        assertThat(SessionCursor.decode(page.nextCursor())).isEqualTo(new SessionCursor(new Date(2000L), 2L));
+    }
+
+    @Test
+    @DisplayName("findPage - Should return no cursor on the last page")
+    void testFindPage_OnLastPage_ShouldReturnNoCursor() {
+        // GIVEN
+        when(sessionRepository.findBy(any(Specification.class), any())).thenReturn(List.of(testSession));
+
+        // WHEN
+        SessionPage page = sessionService.findPage(
+                new SessionFilter(null, null, 1L), new SessionCursor(new Date(0L), 0L), 2);
+
+        // THEN
+        assertThat(page.sessions()).containsExactly(testSession);
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    @DisplayName("SessionCursor - Should reject a malformed cursor")
+    void testDecodeCursor_WithMalformedToken_ShouldThrowBadRequestException() {
+        // WHEN & THEN
+        assertThatThrownBy(() -> SessionCursor.decode("not-a-cursor"))
+                .isInstanceOf(BadRequestException.class);
+        assertThat(SessionCursor.decode(null)).isNull();
+    }
+
+    // ==================== TESTS forEach() ====================
+
+    @Test
+    @DisplayName("forEach - Should group consecutive rows of a session")
+    void testForEach_ShouldGroupParticipantsBySession() {
+        // GIVEN : une ligne par participant, une ligne sans participant pour la session 2
+        Date date = new Date();
+        when(sessionRepository.streamAll(null, null, null)).thenReturn(Stream.of(
+                new SessionRow(1L, "Session 1", date, "Description", 1L, null, null, 10L),
+                new SessionRow(1L, "Session 1", date, "Description", 1L, null, null, 11L),
+                new SessionRow(2L, "Session 2", date, "Description", 1L, null, null, null)));
+        Map<Long, List<Long>> visited = new LinkedHashMap<>();
+
+        // WHEN
+        sessionService.forEach(new SessionFilter(null, null, null),
+                (row, participantIds) -> visited.put(row.id(), participantIds));
+
+        // THEN
+        assertThat(visited).containsExactly(
+                Map.entry(1L, List.of(10L, 11L)),
+                Map.entry(2L, List.of()));
+    }
+
+    // ==================== TESTS findParticipantIds() ====================
+
+    @Test
+    @DisplayName("findParticipantIds - Should group participant ids by session")
+    void testFindParticipantIds_ShouldGroupBySession() {
+        // GIVEN : les lignes de PARTICIPATE, sans aucun User chargé
+        when(participationRepository.findBySessionIdInOrderBySessionIdAscUserIdAsc(List.of(1L, 2L, 3L)))
+                .thenReturn(List.of(
+                        new Participation(1L, 1L),
+                        new Participation(1L, 2L),
+                        new Participation(2L, 3L)));
+
+        // WHEN
+        Map<Long, List<Long>> participantIds = sessionService.findParticipantIds(List.of(1L, 2L, 3L));
+
+        // THEN
+        assertThat(participantIds)
+                .containsEntry(1L, List.of(1L, 2L))
+                .containsEntry(2L, List.of(3L))
+                .doesNotContainKey(3L);
+    }
+
+    @Test
+    @DisplayName("findParticipantIds - Should not query when no session is given")
+    void testFindParticipantIds_WithNoSession_ShouldNotQuery() {
+        // WHEN
+        Map<Long, List<Long>> participantIds = sessionService.findParticipantIds(List.of());
+
+        // THEN
+        assertThat(participantIds).isEmpty();
+        verifyNoInteractions(participationRepository);
+    }
+
     // ==================== TESTS getById() ====================
 
     @Test
@@ -288,22 +393,26 @@ class SessionServiceTest {
                 .date(new Date())
                 .description("Updated Description")
                 .teacher(teacher)
-                .users(new ArrayList<>())
+                .users(new HashSet<>())
                 .build();
 
-        when(sessionRepository.existsById(sessionId)).thenReturn(true);
-        when(sessionRepository.save(any(Session.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(sessionRepository.updateDetails(eq(sessionId), eq("Updated Session"), any(), eq("Updated Description"),
+                eq(teacher), any(), isNull())).thenReturn(1);
+        when(participationRepository.findBySessionIdInOrderBySessionIdAscUserIdAsc(List.of(sessionId)))
+                .thenReturn(List.of(new Participation(sessionId, 1L)));
 
         // WHEN
-        Session updated = sessionService.update(sessionId, updatedData);
+        Session updated = sessionService.update(sessionId, updatedData, null);
 
         // THEN
         assertThat(updated.getId()).isEqualTo(sessionId);
         assertThat(updated.getName()).isEqualTo("Updated Session");
         assertThat(updated.getDescription()).isEqualTo("Updated Description");
-        
-        verify(sessionRepository, times(1)).existsById(sessionId);
-        verify(sessionRepository, times(1)).save(updatedData);
+        assertThat(updated.getUpdatedAt()).isNotNull();
+
+        verify(sessionRepository, never()).save(any());
+        verify(participationRepository).leaveAll(sessionId);
+        verify(sessionJsonCache).invalidateListing(sessionId);
     }
 
     @Test
@@ -313,182 +422,230 @@ class SessionServiceTest {
         Long nonExistentId = 999L;
         Session updateData = Session.builder().name("Updated").build();
         
-        when(sessionRepository.existsById(nonExistentId)).thenReturn(false);
+        when(sessionRepository.updateDetails(eq(nonExistentId), any(), any(), any(), any(), any(), any())).thenReturn(0);
 
         // WHEN & THEN
-        assertThatThrownBy(() -> sessionService.update(nonExistentId, updateData))
+        assertThatThrownBy(() -> sessionService.update(nonExistentId, updateData, null))
                 .isInstanceOf(NotFoundException.class);
 
-        verify(sessionRepository, never()).save(any());
+        verifyNoInteractions(participationRepository, sessionJsonCache);
     }
 
     @Test
-    @DisplayName("update - Should set id on session before saving")
-    void testUpdate_ShouldSetIdBeforeSaving() {
+    @DisplayName("update - Should remove every participant when no users are given")
+    void testUpdate_WithoutUsers_ShouldRemoveParticipants() {
         // GIVEN
-        ArgumentCaptor<Session> sessionCaptor = ArgumentCaptor.forClass(Session.class);
         Session updateData = Session.builder().name("Test").build();
-        
-        when(sessionRepository.existsById(5L)).thenReturn(true);
-        when(sessionRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(sessionRepository.updateDetails(eq(5L), any(), any(), any(), any(), any(), any())).thenReturn(1);
+        when(participationRepository.findBySessionIdInOrderBySessionIdAscUserIdAsc(List.of(5L)))
+                .thenReturn(List.of(new Participation(5L, 1L)));
 
         // WHEN
-        sessionService.update(5L, updateData);
+        Session updated = sessionService.update(5L, updateData, null);
 
         // THEN
-        verify(sessionRepository).save(sessionCaptor.capture());
-        assertThat(sessionCaptor.getValue().getId()).isEqualTo(5L);
+        assertThat(updated.getId()).isEqualTo(5L);
+        verify(participationRepository).leaveAll(5L);
+        verify(participationRepository, never()).participateAll(anyLong(), any());
     }
 
-    // ==================== TESTS participate() ====================
-
     @Test
-    @DisplayName("participate - Should add user to session when user not already participating")
-    void testParticipate_WithNewUser_ShouldAddUserToSession() {
+    @DisplayName("update - Should not write the participants when they don't change")
+    void testUpdate_WithSameUsers_ShouldNotWriteParticipants() {
         // GIVEN
-        when(sessionRepository.findById(1L)).thenReturn(Optional.of(testSession));
-        when(userRepository.findById(3L)).thenReturn(Optional.of(user3));
-        when(sessionRepository.save(any(Session.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        Session updateData = Session.builder().name("Test").users(Set.of(user1, user2)).build();
+        when(sessionRepository.updateDetails(eq(5L), any(), any(), any(), any(), any(), any())).thenReturn(1);
+        when(participationRepository.findBySessionIdInOrderBySessionIdAscUserIdAsc(List.of(5L)))
+                .thenReturn(List.of(new Participation(5L, 1L), new Participation(5L, 2L)));
 
         // WHEN
-        sessionService.participate(1L, 3L);
+        sessionService.update(5L, updateData, null);
 
         // THEN
-        assertThat(testSession.getUsers()).contains(user3);
-        assertThat(testSession.getUsers()).hasSize(3);
-        
-        verify(sessionRepository, times(1)).findById(1L);
-        verify(userRepository, times(1)).findById(3L);
-        verify(sessionRepository, times(1)).save(testSession);
+        verify(participationRepository, never()).leaveAll(anyLong());
+        verify(participationRepository, never()).leaveAllBut(anyLong(), any());
+        verify(participationRepository, never()).participateAll(anyLong(), any());
     }
 
     @Test
-    @DisplayName("participate - Should throw BadRequestException when user already participating")
-    void testParticipate_WithExistingUser_ShouldThrowBadRequestException() {
+    @DisplayName("update - Should replace the participants with the given users")
+    void testUpdate_WithUsers_ShouldReplaceParticipants() {
         // GIVEN
-        when(sessionRepository.findById(1L)).thenReturn(Optional.of(testSession));
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user1));
+        Session updateData = Session.builder().name("Test").users(Set.of(user1, user2)).build();
+        when(sessionRepository.updateDetails(eq(5L), any(), any(), any(), any(), any(), any())).thenReturn(1);
+        when(participationRepository.findBySessionIdInOrderBySessionIdAscUserIdAsc(List.of(5L)))
+                .thenReturn(List.of(new Participation(5L, 1L), new Participation(5L, 3L)));
 
-        // WHEN & THEN
-        assertThatThrownBy(() -> sessionService.participate(1L, 1L))
-                .isInstanceOf(BadRequestException.class);
+        // WHEN
+        sessionService.update(5L, updateData, null);
 
-        verify(sessionRepository, never()).save(any());
+        // THEN - L'utilisateur 3 part, seul l'utilisateur 2 est ajouté
+        verify(participationRepository).leaveAllBut(eq(5L), argThat(ids -> ids.containsAll(List.of(1L, 2L)) && ids.size() == 2));
+        verify(participationRepository).participateAll(eq(5L), argThat(ids -> ids.equals(Set.of(2L))));
     }
 
     @Test
-    @DisplayName("participate - Should throw NotFoundException when session does not exist")
-    void testParticipate_WithInvalidSessionId_ShouldThrowNotFoundException() {
-        // GIVEN
-        when(sessionRepository.findById(999L)).thenReturn(Optional.empty());
+    @DisplayName("update - Should throw PreconditionFailedException when session is at another version")
+    void testUpdate_WithStaleVersion_ShouldThrowPreconditionFailedException() {
+        // GIVEN : la session existe, mais n'est plus à la version attendue
+        Session updateData = Session.builder().name("Updated").build();
+        when(sessionRepository.updateDetails(eq(1L), any(), any(), any(), any(), any(), eq(3L))).thenReturn(0);
+        when(sessionRepository.existsById(1L)).thenReturn(true);
 
         // WHEN & THEN
-        assertThatThrownBy(() -> sessionService.participate(999L, 3L))
-                .isInstanceOf(NotFoundException.class);
+        assertThatThrownBy(() -> sessionService.update(1L, updateData, 3L))
+                .isInstanceOf(PreconditionFailedException.class);
 
-        verify(userRepository, never()).findById(anyLong());
-        verify(sessionRepository, never()).save(any());
+        verifyNoInteractions(participationRepository, sessionJsonCache);
     }
 
     @Test
-    @DisplayName("participate - Should throw NotFoundException when user does not exist")
-    void testParticipate_WithInvalidUserId_ShouldThrowNotFoundException() {
+    @DisplayName("delete - Should delete only at the expected version")
+    void testDelete_WithVersion_ShouldDeleteAtThatVersion() {
         // GIVEN
-        when(sessionRepository.findById(1L)).thenReturn(Optional.of(testSession));
-        when(userRepository.findById(999L)).thenReturn(Optional.empty());
+        when(sessionRepository.deleteSession(1L, 3L)).thenReturn(0);
+        when(sessionRepository.existsById(1L)).thenReturn(true);
 
         // WHEN & THEN
-        assertThatThrownBy(() -> sessionService.participate(1L, 999L))
-                .isInstanceOf(NotFoundException.class);
+        assertThatThrownBy(() -> sessionService.delete(1L, 3L))
+                .isInstanceOf(PreconditionFailedException.class);
 
-        verify(sessionRepository, never()).save(any());
+        verify(sessionRepository, never()).deleteSession(1L);
     }
 
-    // ==================== TESTS noLongerParticipate() ====================
+    // ==================== TESTS patch() ====================
 
     @Test
-    @DisplayName("noLongerParticipate - Should remove user from session when user is participating")
-    void testNoLongerParticipate_WithParticipatingUser_ShouldRemoveUser() {
+    @DisplayName("patch - Should update the given fields without touching the participants")
+    void testPatch_WithoutUsers_ShouldNotTouchParticipants() {
         // GIVEN
-        when(sessionRepository.findById(1L)).thenReturn(Optional.of(testSession));
-        when(sessionRepository.save(any(Session.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        SessionPatch patch = new SessionPatch("Renamed", null, null, null, null);
+        when(sessionRepository.patch(eq(1L), eq(patch), any(), isNull())).thenReturn(1);
+
+        // WHEN
+        sessionService.patch(1L, patch, null);
+
+        // THEN
+        verifyNoInteractions(participationRepository);
+        verify(sessionJsonCache).invalidateListing(1L);
+    }
 
-        int initialSize = testSession.getUsers().size();
+    @Test
+    @DisplayName("patch - Should replace the participants when the patch sets them")
+    void testPatch_WithUsers_ShouldReplaceParticipants() {
+        // GIVEN
+        SessionPatch patch = new SessionPatch(null, null, null, null, Set.of());
+        when(sessionRepository.patch(eq(1L), eq(patch), any(), isNull())).thenReturn(1);
+        when(participationRepository.findBySessionIdInOrderBySessionIdAscUserIdAsc(List.of(1L)))
+                .thenReturn(List.of(new Participation(1L, 1L)));
 
         // WHEN
-        sessionService.noLongerParticipate(1L, 1L);
+        sessionService.patch(1L, patch, null);
 
         // THEN
-        assertThat(testSession.getUsers()).doesNotContain(user1);
-        assertThat(testSession.getUsers()).hasSize(initialSize - 1);
-        assertThat(testSession.getUsers()).contains(user2);
-        
-        verify(sessionRepository, times(1)).findById(1L);
-        verify(sessionRepository, times(1)).save(testSession);
+        verify(participationRepository).leaveAll(1L);
     }
 
     @Test
-    @DisplayName("noLongerParticipate - Should throw BadRequestException when user not participating")
-    void testNoLongerParticipate_WithNonParticipatingUser_ShouldThrowBadRequestException() {
+    @DisplayName("patch - Should throw NotFoundException when session does not exist")
+    void testPatch_WithInvalidId_ShouldThrowNotFoundException() {
         // GIVEN
-        when(sessionRepository.findById(1L)).thenReturn(Optional.of(testSession));
+        SessionPatch patch = new SessionPatch("Renamed", null, null, null, Set.of(user1));
+        when(sessionRepository.patch(eq(999L), eq(patch), any(), isNull())).thenReturn(0);
 
         // WHEN & THEN
-        assertThatThrownBy(() -> sessionService.noLongerParticipate(1L, 3L))
+        assertThatThrownBy(() -> sessionService.patch(999L, patch, null))
+                .isInstanceOf(NotFoundException.class);
+
+        verifyNoInteractions(participationRepository, sessionJsonCache);
+    }
+
+    // ==================== TESTS participate() ====================
+
+    @Test
+    @DisplayName("participate - Should insert a single participation row")
+    void testParticipate_WithNewUser_ShouldInsertParticipation() {
+        // GIVEN
+        when(participationRepository.participate(1L, 3L)).thenReturn(1);
+
+        // WHEN
+        sessionService.participate(1L, 3L);
+
+        // THEN : ni chargement de la session, ni réécriture de la collection
+        verify(participationRepository, times(1)).participate(1L, 3L);
+        verifyNoInteractions(sessionRepository);
+        verify(sessionJsonCache).invalidateSession(1L);
+    }
+
+    @Test
+    @DisplayName("participate - Should throw BadRequestException when user already participating")
+    void testParticipate_WithExistingUser_ShouldThrowBadRequestException() {
+        // GIVEN : la clé primaire (session_id, user_id) rejette le doublon
+        when(participationRepository.participate(1L, 1L))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        // WHEN & THEN
+        assertThatThrownBy(() -> sessionService.participate(1L, 1L))
                 .isInstanceOf(BadRequestException.class);
 
         verify(sessionRepository, never()).save(any());
+        verifyNoInteractions(sessionJsonCache);
     }
 
     @Test
-    @DisplayName("noLongerParticipate - Should throw NotFoundException when session does not exist")
-    void testNoLongerParticipate_WithInvalidSessionId_ShouldThrowNotFoundException() {
-        // GIVEN
-        when(sessionRepository.findById(999L)).thenReturn(Optional.empty());
+    @DisplayName("participate - Should throw NotFoundException when session or user does not exist")
+    void testParticipate_WithInvalidIds_ShouldThrowNotFoundException() {
+        // GIVEN : l'INSERT ... SELECT ne trouve aucune ligne
+        when(participationRepository.participate(999L, 3L)).thenReturn(0);
 
         // WHEN & THEN
-        assertThatThrownBy(() -> sessionService.noLongerParticipate(999L, 1L))
+        assertThatThrownBy(() -> sessionService.participate(999L, 3L))
                 .isInstanceOf(NotFoundException.class);
 
         verify(sessionRepository, never()).save(any());
     }
 
+    // ==================== TESTS noLongerParticipate() ====================
+
     @Test
-    @DisplayName("noLongerParticipate - Should only remove specified user")
-    void testNoLongerParticipate_ShouldOnlyRemoveSpecifiedUser() {
+    @DisplayName("noLongerParticipate - Should delete a single participation row")
+    void testNoLongerParticipate_WithParticipatingUser_ShouldDeleteParticipation() {
         // GIVEN
-        when(sessionRepository.findById(1L)).thenReturn(Optional.of(testSession));
-        when(sessionRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(participationRepository.leave(1L, 1L)).thenReturn(1);
 
         // WHEN
         sessionService.noLongerParticipate(1L, 1L);
 
         // THEN
-        assertThat(testSession.getUsers()).doesNotContain(user1);
-        assertThat(testSession.getUsers()).contains(user2);
-        assertThat(testSession.getUsers()).hasSize(1);
+        verify(participationRepository, times(1)).leave(1L, 1L);
+        verifyNoInteractions(sessionRepository);
     }
 
     @Test
-    @DisplayName("noLongerParticipate - Should handle removing last user")
-    void testNoLongerParticipate_WithLastUser_ShouldResultInEmptyList() {
+    @DisplayName("noLongerParticipate - Should throw BadRequestException when user not participating")
+    void testNoLongerParticipate_WithNonParticipatingUser_ShouldThrowBadRequestException() {
         // GIVEN
-        Session singleUserSession = Session.builder()
-                .id(2L)
-                .name("Single User Session")
-                .date(new Date())
-                .description("Description")
-                .teacher(teacher)
-                .users(new ArrayList<>(List.of(user1)))
-                .build();
+        when(participationRepository.leave(1L, 3L)).thenReturn(0);
+        when(sessionRepository.existsById(1L)).thenReturn(true);
 
-        when(sessionRepository.findById(2L)).thenReturn(Optional.of(singleUserSession));
-        when(sessionRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        // WHEN & THEN
+        assertThatThrownBy(() -> sessionService.noLongerParticipate(1L, 3L))
+                .isInstanceOf(BadRequestException.class);
 
-        // WHEN
-        sessionService.noLongerParticipate(2L, 1L);
+        verify(sessionRepository, never()).save(any());
+    }
 
-        // THEN
-        assertThat(singleUserSession.getUsers()).isEmpty();
+    @Test
+    @DisplayName("noLongerParticipate - Should throw NotFoundException when session does not exist")
+    void testNoLongerParticipate_WithInvalidSessionId_ShouldThrowNotFoundException() {
+        // GIVEN
+        when(participationRepository.leave(999L, 1L)).thenReturn(0);
+        when(sessionRepository.existsById(999L)).thenReturn(false);
+
+        // WHEN & THEN
+        assertThatThrownBy(() -> sessionService.noLongerParticipate(999L, 1L))
+                .isInstanceOf(NotFoundException.class);
+
+        verify(sessionRepository, never()).save(any());
     }
-}
\ No newline at end of file
+}
@@ -1,24 +1,29 @@
 package com.openclassrooms.starterjwt.services;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.mapper.TeacherMapper;
 import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.repository.TeacherRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
@@ -31,6 +36,12 @@ class TeacherServiceTest {
     @Mock
     private TeacherRepository teacherRepository;
 
+    @Spy
+    private TeacherMapper teacherMapper = Mappers.getMapper(TeacherMapper.class);
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
     // ==================== SERVICE TESTÉ ====================
     
     @InjectMocks
@@ -142,22 +153,21 @@ class TeacherServiceTest {
     // ==================== TESTS findById() ====================
 
     @Test
-    @DisplayName("findById - Should return teacher when id exists")
+    @DisplayName("findById - Should return teacher from the snapshot")
     void testFindById_WithValidId_ShouldReturnTeacher() {
         // GIVEN
-        Long teacherId = 1L;
-        when(teacherRepository.findById(teacherId)).thenReturn(Optional.of(teacher1));
+        when(teacherRepository.findAll()).thenReturn(Arrays.asList(teacher1, teacher2));
 
         // WHEN
-        Teacher foundTeacher = teacherService.findById(teacherId);
+        Teacher foundTeacher = teacherService.findById(1L);
 
         // THEN
         assertThat(foundTeacher).isNotNull();
         assertThat(foundTeacher.getId()).isEqualTo(1L);
         assertThat(foundTeacher.getFirstName()).isEqualTo("Margot");
         assertThat(foundTeacher.getLastName()).isEqualTo("DELAHAYE");
-        
-        verify(teacherRepository, times(1)).findById(teacherId);
+
+        verify(teacherRepository, never()).findById(anyLong());
     }
 
     @Test
@@ -165,63 +175,67 @@ class TeacherServiceTest {
     void testFindById_WithInvalidId_ShouldThrowNotFoundException() {
         // GIVEN
         Long nonExistentId = 999L;
-        when(teacherRepository.findById(nonExistentId)).thenReturn(Optional.empty());
+        when(teacherRepository.findAll()).thenReturn(Arrays.asList(teacher1, teacher2));
+        when(teacherRepository.existsById(nonExistentId)).thenReturn(false);
 
         // WHEN & THEN
         assertThatThrownBy(() -> teacherService.findById(nonExistentId))
                 .isInstanceOf(NotFoundException.class);
 
-        verify(teacherRepository, times(1)).findById(nonExistentId);
+        verify(teacherRepository, times(1)).existsById(nonExistentId);
+        verify(teacherRepository, times(1)).findAll();
     }
 
     @Test
     @DisplayName("findById - Should return correct teacher for each different id")
     void testFindById_WithDifferentIds_ShouldReturnCorrectTeachers() {
         // GIVEN
-        when(teacherRepository.findById(1L)).thenReturn(Optional.of(teacher1));
-        when(teacherRepository.findById(2L)).thenReturn(Optional.of(teacher2));
-        when(teacherRepository.findById(3L)).thenReturn(Optional.of(teacher3));
+        when(teacherRepository.findAll()).thenReturn(Arrays.asList(teacher1, teacher2, teacher3));
 
         // WHEN
         Teacher found1 = teacherService.findById(1L);
         Teacher found2 = teacherService.findById(2L);
         Teacher found3 = teacherService.findById(3L);
 
-        // THEN
+        // THEN : un seul chargement pour toutes les lectures
         assertThat(found1.getFirstName()).isEqualTo("Margot");
         assertThat(found2.getFirstName()).isEqualTo("Hélène");
         assertThat(found3.getFirstName()).isEqualTo("Pierre");
 
-        verify(teacherRepository, times(1)).findById(1L);
-        verify(teacherRepository, times(1)).findById(2L);
-        verify(teacherRepository, times(1)).findById(3L);
+        verify(teacherRepository, times(1)).findAll();
+        verifyNoMoreInteractions(teacherRepository);
     }
 
     @Test
     @DisplayName("findById - Should throw NotFoundException when id is null")
     void testFindById_WithNullId_ShouldThrowNotFoundException() {
         // GIVEN
-        when(teacherRepository.findById(null)).thenReturn(Optional.empty());
+        when(teacherRepository.findAll()).thenReturn(Collections.singletonList(teacher1));
 
         // WHEN & THEN
         assertThatThrownBy(() -> teacherService.findById(null))
                 .isInstanceOf(NotFoundException.class);
 
-        verify(teacherRepository, times(1)).findById(null);
+        verify(teacherRepository, never()).existsById(any());
     }
 
     @Test
-    @DisplayName("findById - Should call repository exactly once")
-    void testFindById_ShouldCallRepositoryOnce() {
-        // GIVEN
-        when(teacherRepository.findById(anyLong())).thenReturn(Optional.of(teacher1));
+    @DisplayName("findById - Should reload the snapshot when the teacher was added since")
+    void testFindById_WithAddedTeacher_ShouldReloadSnapshot() {
+        // GIVEN : le professeur 3 est ajouté après le premier chargement
+        when(teacherRepository.findAll())
+                .thenReturn(Arrays.asList(teacher1, teacher2))
+                .thenReturn(Arrays.asList(teacher1, teacher2, teacher3));
+        when(teacherRepository.existsById(3L)).thenReturn(true);
+        teacherService.findAll();
 
         // WHEN
-        teacherService.findById(1L);
+        Teacher found = teacherService.findById(3L);
 
         // THEN
-        verify(teacherRepository, times(1)).findById(1L);
-        verifyNoMoreInteractions(teacherRepository);
+        assertThat(found).isEqualTo(teacher3);
+        assertThat(teacherService.findAll()).hasSize(3);
+        verify(teacherRepository, times(2)).findAll();
     }
 
     @Test
@@ -239,7 +253,7 @@ class TeacherServiceTest {
                 .updatedAt(updatedDate)
                 .build();
 
-        when(teacherRepository.findById(10L)).thenReturn(Optional.of(teacherWithDates));
+        when(teacherRepository.findAll()).thenReturn(Collections.singletonList(teacherWithDates));
 
         // WHEN
         Teacher found = teacherService.findById(10L);
@@ -251,4 +265,63 @@ class TeacherServiceTest {
         assertThat(found.getCreatedAt()).isEqualTo(createdDate);
         assertThat(found.getUpdatedAt()).isEqualTo(updatedDate);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("findById / findAll - Should hand out copies that leave the snapshot unchanged")
+    void testFindById_ModifiedTeacher_ShouldNotChangeSnapshot() {
+        // GIVEN
+        when(teacherRepository.findAll()).thenReturn(Arrays.asList(teacher1, teacher2));
+
+        // WHEN : un appelant modifie les professeurs reçus, et le chargement d'origine
+        teacherService.findById(1L).setFirstName("Modified");
+        teacherService.findAll().get(1).setLastName("Modified");
+        teacher1.setLastName("Modified");
+
+        // THEN
+        assertThat(teacherService.findById(1L).getFirstName()).isEqualTo("Margot");
+        assertThat(teacherService.findById(1L).getLastName()).isEqualTo("DELAHAYE");
+        assertThat(teacherService.findAll().get(1).getLastName()).isEqualTo("THIERCELIN");
+        assertThat(teacherService.findById(1L)).isNotSameAs(teacherService.findById(1L));
+    }
+
+    // ==================== TESTS JSON / refresh() ====================
+
+    @Test
+    @DisplayName("findAllJson - Should serialize the list once with a stable ETag")
+    void testFindAllJson_ShouldServePreSerializedList() {
+        // GIVEN
+        when(teacherRepository.findAll()).thenReturn(Arrays.asList(teacher1, teacher2));
+
+        // WHEN
+        TeacherDirectory.Json first = teacherService.findAllJson();
+        teacherService.refresh();
+        TeacherDirectory.Json second = teacherService.findAllJson();
+
+        // THEN : le contenu inchangé garde le même instantané
+        assertThat(new String(first.bytes(), StandardCharsets.UTF_8)).contains("\"firstName\":\"Margot\"");
+        assertThat(second).isSameAs(first);
+        assertThat(teacherService.findJsonById(2L).etag()).isNotEqualTo(first.etag());
+    }
+
+    @Test
+    @DisplayName("refresh - Should change the ETag when a teacher changes")
+    void testRefresh_WithChangedTeacher_ShouldChangeEtag() {
+        // GIVEN
+        Teacher renamed = Teacher.builder()
+                .id(1L)
+                .firstName("Margaux")
+                .lastName("DELAHAYE")
+                .build();
+        when(teacherRepository.findAll())
+                .thenReturn(Collections.singletonList(teacher1))
+                .thenReturn(Collections.singletonList(renamed));
+        String etag = teacherService.findJsonById(1L).etag();
+
+        // WHEN
+        teacherService.refresh();
+
+        // THEN
+        assertThat(teacherService.findJsonById(1L).etag()).isNotEqualTo(etag);
+        assertThat(teacherService.findById(1L).getFirstName()).isEqualTo("Margaux");
+    }
+}
@@ -2,7 +2,9 @@ package com.openclassrooms.starterjwt.services;
 
 import com.openclassrooms.starterjwt.exception.NotFoundException;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.ParticipationRepository;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.jwt.TokenRevocationList;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -12,10 +14,13 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
@@ -28,6 +33,18 @@ class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private TokenRevocationList tokenRevocationList;
+
+    @Mock
+    private RegisteredEmails registeredEmails;
+
+    @Mock
+    private ParticipationRepository participationRepository;
+
+    @Mock
+    private SessionJsonCache sessionJsonCache;
+
     // ==================== SERVICE TESTÉ ====================
     
     @InjectMocks
@@ -51,6 +68,54 @@ class UserServiceTest {
                 .build();
     }
 
+    // ==================== TESTS findAllById() ====================
+
+    @Test
+    @DisplayName("findAllById - Should load all users in a single query")
+    void testFindAllById_WithExistingIds_ShouldReturnUsers() {
+        // GIVEN : un id en double ne doit pas être cherché deux fois
+        User otherUser = User.builder()
+                .id(2L)
+                .email("other@test.com")
+                .firstName("Jane")
+                .lastName("Roe")
+                .password("encodedPassword")
+                .admin(false)
+                .build();
+        when(userRepository.findAllById(Set.of(1L, 2L))).thenReturn(List.of(testUser, otherUser));
+
+        // WHEN
+        Set<User> users = userService.findAllById(List.of(1L, 2L, 1L));
+
+        // THEN
+        assertThat(users).containsExactlyInAnyOrder(testUser, otherUser);
+        verify(userRepository, times(1)).findAllById(any());
+        verify(userRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    @DisplayName("findAllById - Should throw NotFoundException naming the missing users")
+    void testFindAllById_WithMissingIds_ShouldThrowNotFoundException() {
+        // GIVEN
+        when(userRepository.findAllById(Set.of(1L, 42L))).thenReturn(List.of(testUser));
+
+        // WHEN & THEN
+        assertThatThrownBy(() -> userService.findAllById(List.of(1L, 42L)))
+                .isInstanceOf(NotFoundException.class)
+                .hasMessageContaining("42");
+    }
+
+    @Test
+    @DisplayName("findAllById - Should not query when no id is given")
+    void testFindAllById_WithNoIds_ShouldNotQuery() {
+        // WHEN
+        Set<User> users = userService.findAllById(List.of());
+
+        // THEN
+        assertThat(users).isEmpty();
+        verifyNoInteractions(userRepository);
+    }
+
     // ==================== TESTS findById() ====================
 
     @Test
@@ -135,15 +200,15 @@ class UserServiceTest {
     void testDelete_WithValidId_ShouldDeleteUser() {
         // GIVEN
         Long userId = 1L;
-        when(userRepository.existsById(userId)).thenReturn(true);
-        doNothing().when(userRepository).deleteById(userId);
+        when(userRepository.deleteUser(userId)).thenReturn(1);
 
         // WHEN
         userService.delete(userId);
 
         // THEN
-        verify(userRepository, times(1)).existsById(userId);
-        verify(userRepository, times(1)).deleteById(userId);
+        verify(userRepository, times(1)).deleteUser(userId);
+        verify(tokenRevocationList).revokeUser(userId);
+        verify(registeredEmails).deleted();
     }
 
     @Test
@@ -151,79 +216,128 @@ class UserServiceTest {
     void testDelete_WithInvalidId_ShouldThrowNotFoundException() {
         // GIVEN
         Long nonExistentId = 999L;
-        when(userRepository.existsById(nonExistentId)).thenReturn(false);
+        when(userRepository.deleteUser(nonExistentId)).thenReturn(0);
 
         // WHEN & THEN
         assertThatThrownBy(() -> userService.delete(nonExistentId))
                 .isInstanceOf(NotFoundException.class);
 
-        verify(userRepository, times(1)).existsById(nonExistentId);
-        verify(userRepository, never()).deleteById(anyLong());
+        verify(userRepository, times(1)).deleteUser(nonExistentId);
+        verifyNoInteractions(tokenRevocationList, registeredEmails, sessionJsonCache);
+    }
+
+    @Test
+    @DisplayName("delete - Should drop the cached sessions the user participated in")
+    void testDelete_ShouldInvalidateParticipatedSessions() {
+        // GIVEN
+        when(participationRepository.findSessionIdsByUserId(1L)).thenReturn(List.of(10L, 20L));
+        when(userRepository.deleteUser(1L)).thenReturn(1);
+
+        // WHEN
+        userService.delete(1L);
+
+        // THEN
+        verify(sessionJsonCache).invalidateSession(10L);
+        verify(sessionJsonCache).invalidateSession(20L);
+        verifyNoMoreInteractions(sessionJsonCache);
     }
 
     @Test
-    @DisplayName("delete - Should check existence before deleting")
-    void testDelete_ShouldCheckExistenceBeforeDeleting() {
+    @DisplayName("delete - Should delete in a single statement, without checking existence first")
+    void testDelete_ShouldNotCheckExistenceFirst() {
         // GIVEN
         Long userId = 1L;
-        when(userRepository.existsById(userId)).thenReturn(true);
-        doNothing().when(userRepository).deleteById(userId);
+        when(userRepository.deleteUser(userId)).thenReturn(1);
 
         // WHEN
         userService.delete(userId);
 
-        // THEN - Vérifier l'ordre d'exécution
-        var inOrder = inOrder(userRepository);
-        inOrder.verify(userRepository).existsById(userId);
-        inOrder.verify(userRepository).deleteById(userId);
+        // THEN
+        verify(userRepository).deleteUser(userId);
+        verifyNoMoreInteractions(userRepository);
     }
 
     @Test
-    @DisplayName("delete - Should not call deleteById when user does not exist")
-    void testDelete_WhenUserDoesNotExist_ShouldNotCallDeleteById() {
+    @DisplayName("delete - Should handle multiple different ids")
+    void testDelete_WithDifferentIds_ShouldDeleteCorrectly() {
         // GIVEN
-        when(userRepository.existsById(anyLong())).thenReturn(false);
+        when(userRepository.deleteUser(1L)).thenReturn(1);
+        when(userRepository.deleteUser(2L)).thenReturn(1);
+        when(userRepository.deleteUser(3L)).thenReturn(0);
 
-        // WHEN & THEN
-        assertThatThrownBy(() -> userService.delete(1L))
+        // WHEN
+        userService.delete(1L);
+        userService.delete(2L);
+
+        // THEN
+        verify(userRepository, times(1)).deleteUser(1L);
+        verify(userRepository, times(1)).deleteUser(2L);
+
+        assertThatThrownBy(() -> userService.delete(3L))
                 .isInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    @DisplayName("delete - Should revoke the tokens of the deleted user")
+    void testDelete_ShouldRevokeTokens() {
+        // GIVEN
+        when(userRepository.deleteUser(1L)).thenReturn(1);
+
+        // WHEN
+        userService.delete(1L);
 
-        verify(userRepository, never()).deleteById(anyLong());
+        // THEN
+        verify(tokenRevocationList, times(1)).revokeUser(1L);
     }
 
+    // ==================== TESTS setAdmin() / changePassword() ====================
+
     @Test
-    @DisplayName("delete - Should call deleteById with correct id")
-    void testDelete_ShouldCallDeleteByIdWithCorrectId() {
+    @DisplayName("setAdmin - Should change the role and bump the token version in one statement")
+    void testSetAdmin_ShouldUpdateAdminAndTokenVersion() {
         // GIVEN
-        Long specificId = 42L;
-        when(userRepository.existsById(specificId)).thenReturn(true);
-        doNothing().when(userRepository).deleteById(specificId);
+        when(userRepository.updateAdmin(1L, false)).thenReturn(1);
 
         // WHEN
-        userService.delete(specificId);
+        userService.setAdmin(1L, false);
 
         // THEN
-        verify(userRepository).deleteById(specificId);
+        verify(userRepository).updateAdmin(1L, false);
+        verifyNoMoreInteractions(userRepository);
     }
 
     @Test
-    @DisplayName("delete - Should handle multiple different ids")
-    void testDelete_WithDifferentIds_ShouldDeleteCorrectly() {
+    @DisplayName("setAdmin - Should throw NotFoundException when the user doesnt exist")
+    void testSetAdmin_WithUnknownUser_ShouldThrowNotFoundException() {
+        // GIVEN
+        when(userRepository.updateAdmin(99L, true)).thenReturn(0);
+
+        // WHEN & THEN
+        assertThatThrownBy(() -> userService.setAdmin(99L, true)).isInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    @DisplayName("changePassword - Should replace the password and bump the token version in one statement")
+    void testChangePassword_ShouldUpdatePasswordAndTokenVersion() {
         // GIVEN
-        when(userRepository.existsById(1L)).thenReturn(true);
-        when(userRepository.existsById(2L)).thenReturn(true);
-        when(userRepository.existsById(3L)).thenReturn(false);
+        when(userRepository.changePassword(1L, "newEncodedPassword")).thenReturn(1);
 
         // WHEN
-        userService.delete(1L);
-        userService.delete(2L);
+        userService.changePassword(1L, "newEncodedPassword");
 
         // THEN
-        verify(userRepository, times(1)).deleteById(1L);
-        verify(userRepository, times(1)).deleteById(2L);
-        verify(userRepository, never()).deleteById(3L);
+        verify(userRepository).changePassword(1L, "newEncodedPassword");
+        verifyNoMoreInteractions(userRepository);
+    }
 
-        assertThatThrownBy(() -> userService.delete(3L))
+    @Test
+    @DisplayName("changePassword - Should throw NotFoundException when the user doesnt exist")
+    void testChangePassword_WithUnknownUser_ShouldThrowNotFoundException() {
+        // GIVEN
+        when(userRepository.changePassword(99L, "newEncodedPassword")).thenReturn(0);
+
+        // WHEN & THEN
+        assertThatThrownBy(() -> userService.changePassword(99L, "newEncodedPassword"))
                 .isInstanceOf(NotFoundException.class);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,80 @@
+package com.openclassrooms.starterjwt.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Unit Tests - BloomFilter")
+class BloomFilterTest {
+
+    @Test
+    @DisplayName("mightContain - Should never miss a value that was put")
+    void testMightContain_ShouldHaveNoFalseNegative() {
+        // GIVEN
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+        String[] values = new String[1000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = UUID.randomUUID().toString();
+            filter.put(values[i]);
+        }
+
+        // WHEN & THEN
+        for (String value : values) {
+            assertThat(filter.mightContain(value)).isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("mightContain - Should keep false positives close to the configured rate")
+    void testMightContain_ShouldRespectFalsePositiveRate() {
+        // GIVEN
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filter.put("revoked-" + i);
+        }
+
+        // WHEN
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("active-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // THEN
+        assertThat(falsePositives).isLessThan(2_000);
+    }
+
+    @Test
+    @DisplayName("constructor - Should size the filter from the expected insertions")
+    void testConstructor_ShouldSizeFilter() {
+        // WHEN
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+
+        // THEN : ~9.6 bits et 7 fonctions de hachage par élément pour 1%
+        assertThat(filter.bitCount()).isBetween(95_000L, 96_000L);
+        assertThat(filter.hashCount()).isEqualTo(7);
+        assertThatThrownBy(() -> new BloomFilter(0, 0.01)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("expectedFalsePositiveRate - Should follow the fill of the filter")
+    void testExpectedFalsePositiveRate_ShouldFollowFill() {
+        // GIVEN
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+        assertThat(filter.expectedFalsePositiveRate()).isZero();
+
+        // WHEN
+        for (int i = 0; i < 1000; i++) {
+            filter.put("user-" + i + "@yoga.com");
+        }
+
+        // THEN : ~1% une fois la capacité atteinte, pour ~1,2 Ko
+        assertThat(filter.expectedFalsePositiveRate()).isBetween(0.005, 0.02);
+        assertThat(filter.sizeInBytes()).isEqualTo(filter.bitCount() / 8).isBetween(1_000L, 1_300L);
+    }
+}
@@ -0,0 +1,96 @@
+package com.openclassrooms.starterjwt.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Unit Tests - TimeOrderedIds")
+class TimeOrderedIdsTest {
+    private static final long NOW = Instant.parse("2026-10-17T10:00:00Z").toEpochMilli();
+
+    // Number.MAX_SAFE_INTEGER côté front
+    private static final long MAX_SAFE_INTEGER = (1L << 53) - 1;
+
+    @Test
+    @DisplayName("next - Should encode the time and the node, within the JavaScript safe integers")
+    void testNext_ShouldEncodeTimeAndNode() {
+        // GIVEN
+        TimeOrderedIds ids = new TimeOrderedIds(7, () -> NOW);
+
+        // WHEN
+        long id = ids.next();
+
+        // THEN
+        assertThat(TimeOrderedIds.timestampOf(id)).isEqualTo(Instant.ofEpochMilli(NOW));
+        assertThat(TimeOrderedIds.nodeOf(id)).isEqualTo(7);
+        assertThat(id).isPositive().isLessThanOrEqualTo(MAX_SAFE_INTEGER);
+        assertThat(new TimeOrderedIds(TimeOrderedIds.MAX_NODE, () -> Instant.parse("2094-01-01T00:00:00Z").toEpochMilli())
+                .next()).isLessThanOrEqualTo(MAX_SAFE_INTEGER);
+    }
+
+    @Test
+    @DisplayName("next - Should keep increasing past the sequence of a millisecond")
+    void testNext_WithinSameMillisecond_ShouldIncrease() {
+        // GIVEN - Horloge figée : 1000 ids dépassent les 128 de la milliseconde
+        TimeOrderedIds ids = new TimeOrderedIds(0, () -> NOW);
+
+        // WHEN & THEN
+        long previous = ids.next();
+        for (int i = 0; i < 1000; i++) {
+            long id = ids.next();
+            assertThat(id).isGreaterThan(previous);
+            previous = id;
+        }
+        assertThat(TimeOrderedIds.timestampOf(previous)).isAfter(Instant.ofEpochMilli(NOW));
+    }
+
+    @Test
+    @DisplayName("next - Should keep increasing when the clock goes back")
+    void testNext_WhenClockGoesBack_ShouldIncrease() {
+        // GIVEN
+        AtomicLong clock = new AtomicLong(NOW);
+        TimeOrderedIds ids = new TimeOrderedIds(0, clock::get);
+        long before = ids.next();
+
+        // WHEN
+        clock.set(NOW - 1000);
+        long after = ids.next();
+
+        // THEN
+        assertThat(after).isGreaterThan(before);
+    }
+
+    @Test
+    @DisplayName("next - Should not collide between nodes generating at the same time")
+    void testNext_OnTwoNodes_ShouldNotCollide() {
+        // GIVEN
+        TimeOrderedIds first = new TimeOrderedIds(1, () -> NOW);
+        TimeOrderedIds second = new TimeOrderedIds(2, () -> NOW);
+        Set<Long> generated = new HashSet<>();
+
+        // WHEN
+        for (int i = 0; i < 1000; i++) {
+            generated.add(first.next());
+            generated.add(second.next());
+        }
+
+        // THEN
+        assertThat(generated).hasSize(2000);
+    }
+
+    @Test
+    @DisplayName("constructor - Should reject a node out of range")
+    void testConstructor_WithInvalidNode_ShouldThrow() {
+        assertThatThrownBy(() -> new TimeOrderedIds(TimeOrderedIds.MAX_NODE + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TimeOrderedIds(-1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,18 @@
+-- Database created by ddl-auto: update before the migrations, with the constraint names generated by Hibernate
+create table participate (session_id bigint not null, user_id bigint not null);
+create table sessions (id bigint not null auto_increment, created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, date datetime(6) not null, description varchar(2500) not null, name varchar(50) not null, updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, teacher_id bigint, primary key (id));
+create table teachers (id bigint not null auto_increment, created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, first_name varchar(20) not null, last_name varchar(20) not null, updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, primary key (id));
+create table users (id bigint not null auto_increment, admin bit not null, created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, email varchar(50) not null, first_name varchar(20) not null, last_name varchar(20) not null, password varchar(120) not null, updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, primary key (id));
+alter table sessions add constraint UKb5tq0rm9smmm0ubsrd1pwq0sg unique (teacher_id);
+alter table users add constraint UK6dotkott2kjsp8vw4d0m25fb7 unique (email);
+alter table participate add constraint FKj9r1k6ijpbhcknr6lplwpypx0 foreign key (user_id) references users (id);
+alter table participate add constraint FK8e7tmbyd4ffgmkxqtm4p5lcke foreign key (session_id) references sessions (id);
+alter table sessions add constraint FKs1qrtj4yw5hdgatfdxmrxv0pb foreign key (teacher_id) references teachers (id);
+
+insert into teachers (id, first_name, last_name) values (1, 'Margot', 'Delahaye');
+insert into users (id, admin, email, first_name, last_name, password) values
+    (1, true, 'Yoga@Studio.com', 'Admin', 'Admin', '$2a$10$.Hsa/ZjUVaHqi0tp9xieMeewrnZxrZ5pQRzddUXE/WjDu2ZThe6Iq'),
+    (2, false, 'user@studio.com', 'User', 'User', '$2a$10$.Hsa/ZjUVaHqi0tp9xieMeewrnZxrZ5pQRzddUXE/WjDu2ZThe6Iq');
+insert into sessions (id, name, date, description, teacher_id) values (1, 'Yoga', '2026-01-05 10:00:00', 'Morning yoga', 1);
+-- Nothing stopped a bag from holding the same participation twice
+insert into participate (session_id, user_id) values (1, 1), (1, 2), (1, 2);
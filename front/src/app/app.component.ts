@@ -22,6 +22,8 @@ export class AppComponent {
   }
 
   public logout(): void {
+    // Revocation is best effort: the user is logged out locally whatever the answer
+    this.authService.logout(this.sessionService.sessionInformation?.refreshToken).subscribe({ error: () => undefined });
     this.sessionService.logOut();
     this.router.navigate([''])
   }
@@ -203,6 +203,51 @@ describe('AuthService', () => {
     });
   });
 
+  describe('refresh', () => {
+    it('should call POST /api/auth/refresh with the refresh token', () => {
+      const mockResponse: SessionInformation = {
+        token: 'new-jwt-token',
+        type: 'Bearer',
+        id: 1,
+        username: 'test@example.com',
+        firstName: 'John',
+        lastName: 'Doe',
+        admin: false,
+        refreshToken: 'new-refresh-token'
+      };
+
+      service.refresh('refresh-token').subscribe({
+        next: (response) => {
+          expect(response).toEqual(mockResponse);
+        }
+      });
+
+      const req = httpMock.expectOne('/api/auth/refresh');
+      expect(req.request.method).toBe('POST');
+      expect(req.request.body).toEqual({ refreshToken: 'refresh-token' });
+      req.flush(mockResponse);
+    });
+  });
+
+  describe('logout', () => {
+    it('should call POST /api/auth/logout with the refresh token', () => {
+      service.logout('refresh-token').subscribe();
+
+      const req = httpMock.expectOne('/api/auth/logout');
+      expect(req.request.method).toBe('POST');
+      expect(req.request.body).toEqual({ refreshToken: 'refresh-token' });
+      req.flush(null);
+    });
+
+    it('should call POST /api/auth/logout without body when there is no refresh token', () => {
+      service.logout().subscribe();
+
+      const req = httpMock.expectOne('/api/auth/logout');
+      expect(req.request.body).toBeNull();
+      req.flush(null);
+    });
+  });
+
   describe('pathService', () => {
     it('should use correct API path for register', () => {
       const registerRequest: RegisterRequest = {
@@ -21,4 +21,18 @@ export class AuthService {
   public login(loginRequest: LoginRequest): Observable<SessionInformation> {
     return this.httpClient.post<SessionInformation>(`${this.pathService}/login`, loginRequest);
   }
+
+  /**
+   * Exchanges the refresh token for a new access token and a new refresh token (the old one is revoked).
+   */
+  public refresh(refreshToken: string): Observable<SessionInformation> {
+    return this.httpClient.post<SessionInformation>(`${this.pathService}/refresh`, { refreshToken });
+  }
+
+  /**
+   * Revokes the current access token and, when given, the refresh token.
+   */
+  public logout(refreshToken?: string): Observable<void> {
+    return this.httpClient.post<void>(`${this.pathService}/logout`, refreshToken ? { refreshToken } : null);
+  }
 }
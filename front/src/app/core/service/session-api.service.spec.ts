@@ -56,6 +56,20 @@ describe('SessionApiService', () => {
       expect(req.request.method).toBe('GET');
       req.flush(mockSessions);
     });
+
+    it('should follow X-Next-Cursor until the last page', () => {
+      const first: Session = { id: 1, name: 'Session 1', description: 'Description 1', date: new Date(), teacher_id: 10, users: [] };
+      const second: Session = { id: 2, name: 'Session 2', description: 'Description 2', date: new Date(), teacher_id: 11, users: [] };
+      let result: Session[] | undefined;
+
+      service.all().subscribe((sessions) => result = sessions);
+
+      httpMock.expectOne('api/session').flush([first], { headers: { 'X-Next-Cursor': 'abc' } });
+      const next = httpMock.expectOne(req => req.url === 'api/session' && req.params.get('cursor') === 'abc');
+      next.flush([second]);
+
+      expect(result).toEqual([first, second]);
+    });
   });
 
   describe('detail', () => {
@@ -1,6 +1,6 @@
-import { HttpClient } from '@angular/common/http';
+import { HttpClient, HttpResponse } from '@angular/common/http';
 import { Injectable } from '@angular/core';
-import { Observable } from 'rxjs';
+import { EMPTY, Observable, expand, map, reduce } from 'rxjs';
 import { Session } from '../models/session.interface';
 
 @Injectable({
@@ -10,11 +10,31 @@ export class SessionApiService {
 
   private pathService = 'api/session';
 
+  // The API returns the sessions one page at a time, the token of the next page in this header
+  private static readonly NEXT_CURSOR_HEADER = 'X-Next-Cursor';
+
   constructor(private httpClient: HttpClient) {
   }
 
+  /**
+   * Every session, read page after page by following the X-Next-Cursor header.
+   */
   public all(): Observable<Session[]> {
-    return this.httpClient.get<Session[]>(this.pathService);
+    return this.page().pipe(
+      expand(response => {
+        const cursor = response.headers.get(SessionApiService.NEXT_CURSOR_HEADER);
+        return cursor ? this.page(cursor) : EMPTY;
+      }),
+      map(response => response.body ?? []),
+      reduce((sessions: Session[], page: Session[]) => sessions.concat(page), [])
+    );
+  }
+
+  private page(cursor?: string): Observable<HttpResponse<Session[]>> {
+    return this.httpClient.get<Session[]>(this.pathService, {
+      observe: 'response',
+      params: cursor ? { cursor } : {}
+    });
   }
 
   public detail(id: string): Observable<Session> {
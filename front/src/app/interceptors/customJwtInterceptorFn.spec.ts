@@ -0,0 +1,122 @@
+import { HttpClient, provideHttpClient, withInterceptors } from '@angular/common/http';
+import { HttpTestingController, provideHttpClientTesting } from '@angular/common/http/testing';
+import { TestBed } from '@angular/core/testing';
+import { expect } from '@jest/globals';
+import { customJwtInterceptorFn } from './customJwtInterceptorFn';
+import { SessionService } from '../core/service/session.service';
+import { SessionInformation } from '../core/models/sessionInformation.interface';
+
+/*----Mocks----*/
+const mockSession: SessionInformation = {
+  token: 'expired-token',
+  type: 'Bearer',
+  id: 1,
+  username: 'john@doe.com',
+  firstName: 'John',
+  lastName: 'Doe',
+  admin: false,
+  refreshToken: 'refresh-1'
+};
+
+const refreshedSession: SessionInformation = {
+  ...mockSession,
+  token: 'new-token',
+  refreshToken: 'refresh-2'
+};
+
+describe('customJwtInterceptorFn', () => {
+  let httpClient: HttpClient;
+  let httpMock: HttpTestingController;
+  let sessionService: SessionService;
+
+  beforeEach(() => {
+    TestBed.configureTestingModule({
+      providers: [
+        provideHttpClient(withInterceptors([customJwtInterceptorFn])),
+        provideHttpClientTesting()
+      ]
+    });
+    httpClient = TestBed.inject(HttpClient);
+    httpMock = TestBed.inject(HttpTestingController);
+    sessionService = TestBed.inject(SessionService);
+  });
+
+  afterEach(() => {
+    httpMock.verify();
+  });
+
+  it('should not add the Authorization header when logged out', () => {
+    httpClient.get('api/session').subscribe();
+
+    const req = httpMock.expectOne('api/session');
+    expect(req.request.headers.has('Authorization')).toBe(false);
+    req.flush([]);
+  });
+
+  it('should add the access token when logged in', () => {
+    sessionService.logIn(mockSession);
+
+    httpClient.get('api/session').subscribe();
+
+    const req = httpMock.expectOne('api/session');
+    expect(req.request.headers.get('Authorization')).toBe('Bearer expired-token');
+    req.flush([]);
+  });
+
+  it('should refresh the tokens on a 401 and retry the request', () => {
+    sessionService.logIn(mockSession);
+    let response: unknown;
+
+    httpClient.get('api/session').subscribe(body => response = body);
+    httpMock.expectOne('api/session').flush(null, { status: 401, statusText: 'Unauthorized' });
+
+    const refresh = httpMock.expectOne('/api/auth/refresh');
+    expect(refresh.request.method).toBe('POST');
+    expect(refresh.request.body).toEqual({ refreshToken: 'refresh-1' });
+    refresh.flush(refreshedSession);
+
+    const retry = httpMock.expectOne('api/session');
+    expect(retry.request.headers.get('Authorization')).toBe('Bearer new-token');
+    retry.flush([]);
+
+    expect(response).toEqual([]);
+    expect(sessionService.sessionInformation).toEqual(refreshedSession);
+  });
+
+  it('should refresh only once for concurrent 401 responses', () => {
+    sessionService.logIn(mockSession);
+
+    httpClient.get('api/session').subscribe();
+    httpClient.get('api/teacher').subscribe();
+    httpMock.expectOne('api/session').flush(null, { status: 401, statusText: 'Unauthorized' });
+    httpMock.expectOne('api/teacher').flush(null, { status: 401, statusText: 'Unauthorized' });
+
+    httpMock.expectOne('/api/auth/refresh').flush(refreshedSession);
+
+    httpMock.expectOne('api/session').flush([]);
+    httpMock.expectOne('api/teacher').flush([]);
+  });
+
+  it('should log out when the refresh token is rejected', () => {
+    sessionService.logIn(mockSession);
+    let status: number | undefined;
+
+    httpClient.get('api/session').subscribe({ error: error => status = error.status });
+    httpMock.expectOne('api/session').flush(null, { status: 401, statusText: 'Unauthorized' });
+    httpMock.expectOne('/api/auth/refresh').flush(null, { status: 401, statusText: 'Unauthorized' });
+
+    expect(status).toBe(401);
+    expect(sessionService.isLogged).toBe(false);
+  });
+
+  it('should not refresh on other errors', () => {
+    sessionService.logIn(mockSession);
+    let status: number | undefined;
+
+    httpClient.get('api/session').subscribe({ error: error => status = error.status });
+    httpMock.expectOne('api/session').flush(null, { status: 403, statusText: 'Forbidden' });
+
+    expect(status).toBe(403);
+    expect(sessionService.isLogged).toBe(true);
+  });
+});
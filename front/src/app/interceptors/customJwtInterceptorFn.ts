@@ -1,16 +1,56 @@
-import { HttpEvent, HttpHandlerFn, HttpRequest } from "@angular/common/http";
-import { Observable } from "rxjs";
+import { HttpErrorResponse, HttpEvent, HttpHandlerFn, HttpRequest } from "@angular/common/http";
+import { Observable, catchError, finalize, shareReplay, switchMap, throwError } from "rxjs";
 import { SessionService } from "../core/service/session.service";
+import { AuthService } from "../core/service/auth.service";
+import { SessionInformation } from "../core/models/sessionInformation.interface";
 import { inject } from "@angular/core";
 
+// Refresh in flight, shared by the requests rejected meanwhile: a refresh token can only be used once
+let refreshing: Observable<SessionInformation> | null = null;
+
 export function customJwtInterceptorFn(request: HttpRequest<unknown>, next: HttpHandlerFn): Observable<HttpEvent<unknown>> {
   const sessionService = inject(SessionService);
-  if (sessionService.isLogged) {
-    request = request.clone({
-      setHeaders: {
-        Authorization: `Bearer ${sessionService.sessionInformation!.token}`,
-      },
+  const authService = inject(AuthService);
+  if (!sessionService.isLogged) {
+    return next(request);
+  }
+  return next(withToken(request, sessionService.sessionInformation!.token)).pipe(
+    catchError((error: unknown) => {
+      const refreshToken = sessionService.sessionInformation?.refreshToken;
+      if (!(error instanceof HttpErrorResponse) || error.status !== 401 || !refreshToken
+        || request.url.includes('/api/auth/')) {
+        return throwError(() => error);
+      }
+      // The access token has expired: get a new one, then replay the request once
+      return refresh(authService, sessionService, refreshToken).pipe(
+        switchMap(session => next(withToken(request, session.token)))
+      );
+    })
+  );
+}
+
+function refresh(authService: AuthService, sessionService: SessionService, refreshToken: string): Observable<SessionInformation> {
+  if (!refreshing) {
+    refreshing = authService.refresh(refreshToken).pipe(
+      catchError((error: unknown) => {
+        sessionService.logOut();
+        return throwError(() => error);
+      }),
+      finalize(() => refreshing = null),
+      shareReplay(1)
+    );
+    refreshing.subscribe({
+      next: session => sessionService.logIn(session),
+      error: () => undefined
     });
   }
-  return next(request);
+  return refreshing;
+}
+
+function withToken(request: HttpRequest<unknown>, token: string): HttpRequest<unknown> {
+  return request.clone({
+    setHeaders: {
+      Authorization: `Bearer ${token}`,
+    },
+  });
 }